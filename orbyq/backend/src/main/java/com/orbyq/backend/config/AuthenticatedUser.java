@@ -0,0 +1,53 @@
+package com.orbyq.backend.config;
+
+import com.orbyq.backend.model.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+// Security principal carrying the stable user id, so nothing downstream has to look the user up by email.
+// Built from the User row at login, and from verified claims on every other request (password is null then).
+public class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String email;
+    private final String password;
+    private final List<String> roles;
+    private final long securityVersion;
+    private final List<GrantedAuthority> authorities;
+
+    public AuthenticatedUser(Long id, String email, String password, Collection<String> roles, long securityVersion) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.roles = List.copyOf(roles);
+        this.securityVersion = securityVersion;
+        this.authorities = this.roles.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getPassword(), user.getRoles(), user.getSecurityVersion());
+    }
+
+    public static AuthenticatedUser from(VerifiedToken token) {
+        return new AuthenticatedUser(token.userId(), token.subject(), null, token.roles(), token.securityVersion());
+    }
+
+    public Long getId() { return id; }
+    public List<String> getRoles() { return roles; }
+    public long getSecurityVersion() { return securityVersion; }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() { return authorities; }
+
+    @Override
+    public String getPassword() { return password; }
+
+    @Override
+    public String getUsername() { return email; }
+}
@@ -0,0 +1,5 @@
+package com.orbyq.backend.config;
+
+// The caller of the current request: just the id for ownership checks and foreign keys, never a managed entity
+public record CurrentUser(Long id, String email) {
+}
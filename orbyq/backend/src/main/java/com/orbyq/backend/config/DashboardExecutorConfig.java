@@ -0,0 +1,17 @@
+package com.orbyq.backend.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class DashboardExecutorConfig {
+
+    // Dashboard sections are short blocking JDBC calls; one virtual thread each keeps them off the request thread pool
+    @Bean(name = "dashboardExecutor", destroyMethod = "close")
+    public ExecutorService dashboardExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dashboard-", 0).factory());
+    }
+}
@@ -0,0 +1,25 @@
+package com.orbyq.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ImageExecutorConfig {
+
+    // Decoding and scaling is CPU and heap heavy, so a few platform threads with a bounded queue; when the queue is
+    // full the work is rejected rather than piling up, and the next board load asks for it again
+    @Bean(name = "imageExecutor", destroyMethod = "shutdown")
+    public ExecutorService imageExecutor(
+            @Value("${images.threads:2}") int threads,
+            @Value("${images.queue-capacity:100}") int queueCapacity
+    ) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("images-", 0).daemon().factory(), new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -1,20 +1,35 @@
 package com.orbyq.backend.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.Optional;
 
 @Component
 public class JwtUtil {
+    private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
+
+    // Far above anything we mint; anything longer is rejected before it reaches the parser
+    private static final int MAX_TOKEN_LENGTH = 8192;
 
     @Value("${jwt.secret}")
     private String jwtSecret;
@@ -28,23 +43,37 @@ public class JwtUtil {
     @Value("${refresh.expiration}")
     private Long refreshExpiration;
 
-    private SecretKey getJwtSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
-    }
-
-    private SecretKey getRefreshSigningKey() {
-        return Keys.hmacShaKeyFor(refreshSecret.getBytes());
+    @Value("${jwt.cache.max-entries:10000}")
+    private int verifiedTokenCacheSize;
+
+    private SecretKey jwtSigningKey;
+    private SecretKey refreshSigningKey;
+    private JwtParser jwtParser;
+    private JwtParser refreshParser;
+    private VerifiedTokenCache verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        jwtSigningKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        refreshSigningKey = Keys.hmacShaKeyFor(refreshSecret.getBytes());
+        jwtParser = Jwts.parser().verifyWith(jwtSigningKey).build();
+        refreshParser = Jwts.parser().verifyWith(refreshSigningKey).build();
+        verifiedTokens = new VerifiedTokenCache(verifiedTokenCacheSize);
     }
 
-    public String generateToken(UserDetails userDetails) {
+    public String generateToken(AuthenticatedUser user) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("roles", userDetails.getAuthorities());
-        return createToken(claims, userDetails.getUsername(), getJwtSigningKey(), jwtExpiration);
+        claims.put("uid", user.getId());
+        claims.put("roles", user.getRoles());
+        claims.put("sv", user.getSecurityVersion());
+        return createToken(claims, user.getUsername(), jwtSigningKey, jwtExpiration);
     }
 
-    public String generateRefreshToken(UserDetails userDetails) {
+    public String generateRefreshToken(AuthenticatedUser user) {
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername(), getRefreshSigningKey(), refreshExpiration);
+        claims.put("uid", user.getId());
+        claims.put("sv", user.getSecurityVersion());
+        return createToken(claims, user.getUsername(), refreshSigningKey, refreshExpiration);
     }
 
     @SuppressWarnings("deprecation")
@@ -58,47 +87,89 @@ public class JwtUtil {
                 .compact();
     }
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject, getJwtSigningKey());
-    }
-
-    public String extractUsernameFromRefreshToken(String token) {
-        return extractClaim(token, Claims::getSubject, getRefreshSigningKey());
+    // Signature and expiry are checked once; repeat presentations of the same token are served from the cache
+    public Optional<VerifiedToken> verifyAccessToken(String token) {
+        if (!isWellFormed(token)) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.get(digest, now);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        VerifiedToken verified = parse(token, jwtParser);
+        if (verified != null) {
+            verifiedTokens.put(digest, verified, now);
+        }
+        return Optional.ofNullable(verified);
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver, SecretKey key) {
-        final Claims claims = extractAllClaims(token, key);
-        return claimsResolver.apply(claims);
+    // Refresh tokens are presented once per rotation, so they always go through a full parse
+    public Optional<VerifiedToken> verifyRefreshToken(String token) {
+        if (!isWellFormed(token)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(parse(token, refreshParser));
     }
 
-    @SuppressWarnings("deprecation")
-    private Claims extractAllClaims(String token, SecretKey key) {
-        return Jwts.parser()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private VerifiedToken parse(String token, JwtParser parser) {
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            if (claims.getSubject() == null || claims.getExpiration() == null) {
+                return null;
+            }
+            long issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L;
+            Long userId = claims.get("uid") instanceof Number uid ? uid.longValue() : null;
+            long securityVersion = claims.get("sv") instanceof Number sv ? sv.longValue() : 0L;
+            return new VerifiedToken(claims.getSubject(), userId, roles(claims.get("roles")), securityVersion,
+                    issuedAt, claims.getExpiration().getTime());
+        } catch (JwtException | IllegalArgumentException e) {
+            // Expired and tampered tokens are routine; no stack trace needed
+            logger.debug("Rejected JWT: {}", e.getMessage());
+            return null;
+        }
     }
 
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token, getJwtSigningKey()));
+    // Current tokens carry plain role names; older ones serialized GrantedAuthority objects as {"authority": ...}
+    private static List<String> roles(Object claim) {
+        if (!(claim instanceof Collection<?> values)) {
+            return List.of();
+        }
+        List<String> roles = new ArrayList<>(values.size());
+        for (Object value : values) {
+            if (value instanceof String role) {
+                roles.add(role);
+            } else if (value instanceof Map<?, ?> authority && authority.get("authority") instanceof String role) {
+                roles.add(role);
+            }
+        }
+        return List.copyOf(roles);
     }
 
-    public Boolean validateRefreshToken(String token) {
-        try {
-            extractAllClaims(token, getRefreshSigningKey());
-            return !isTokenExpired(token, getRefreshSigningKey());
-        } catch (Exception e) {
+    // Cheap structural check so obvious garbage never reaches the parser: three base64url segments, sane length
+    private static boolean isWellFormed(String token) {
+        if (token == null || token.isEmpty() || token.length() > MAX_TOKEN_LENGTH) {
             return false;
         }
+        int dots = 0;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                dots++;
+            } else if (!((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_')) {
+                return false;
+            }
+        }
+        return dots == 2;
     }
 
-    private Boolean isTokenExpired(String token, SecretKey key) {
-        return extractExpiration(token, key).before(new Date());
-    }
-
-    private Date extractExpiration(String token, SecretKey key) {
-        return extractClaim(token, Claims::getExpiration, key);
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package com.orbyq.backend.config;
 
 import com.orbyq.backend.service.CustomUserDetailsService;
+import com.orbyq.backend.service.PrincipalCache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -19,10 +20,12 @@ public class SecurityConfig {
 
     private final CustomUserDetailsService userDetailsService;
     private final JwtUtil jwtUtil;
+    private final PrincipalCache principalCache;
 
-    public SecurityConfig(CustomUserDetailsService userDetailsService, JwtUtil jwtUtil) {
+    public SecurityConfig(CustomUserDetailsService userDetailsService, JwtUtil jwtUtil, PrincipalCache principalCache) {
         this.userDetailsService = userDetailsService;
         this.jwtUtil = jwtUtil;
+        this.principalCache = principalCache;
     }
 
     @Bean
@@ -44,7 +47,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/**", "/api/ping", "/api/auth/login", "/api/auth/register", "/api/auth/validate", "/api/auth/refresh", "/api/dashboard/**", "/api/dashboard/ping", "/api/**").permitAll()
                         .anyRequest().authenticated()
                 )
-                .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, userDetailsService),
+                .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, userDetailsService, principalCache),
                         UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
@@ -0,0 +1,19 @@
+package com.orbyq.backend.config;
+
+import java.util.List;
+
+// Immutable result of a successful signature and expiry check; never built from an unverified token.
+// userId is null for tokens minted before the uid claim existed.
+public record VerifiedToken(
+        String subject,
+        Long userId,
+        List<String> roles,
+        long securityVersion,
+        long issuedAtMillis,
+        long expiresAtMillis
+) {
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
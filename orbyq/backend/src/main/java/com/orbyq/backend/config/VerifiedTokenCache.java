@@ -0,0 +1,55 @@
+package com.orbyq.backend.config;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Bounded map of token digest -> verified claims. Entries die with the token's own expiry,
+// so a hit never outlives what a fresh parse would have accepted.
+class VerifiedTokenCache {
+
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, VerifiedToken> entries;
+
+    VerifiedTokenCache(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.entries = new ConcurrentHashMap<>(Math.min(this.maxEntries, 1024));
+    }
+
+    VerifiedToken get(String digest, long nowMillis) {
+        VerifiedToken token = entries.get(digest);
+        if (token == null) {
+            return null;
+        }
+        if (token.isExpired(nowMillis)) {
+            entries.remove(digest, token);
+            return null;
+        }
+        return token;
+    }
+
+    void put(String digest, VerifiedToken token, long nowMillis) {
+        if (entries.size() >= maxEntries) {
+            evict(nowMillis);
+        }
+        entries.put(digest, token);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private synchronized void evict(long nowMillis) {
+        if (entries.size() < maxEntries) {
+            return;
+        }
+        entries.values().removeIf(token -> token.isExpired(nowMillis));
+
+        // Everything still live: drop roughly a tenth so we don't re-enter on every put
+        int toDrop = entries.size() - maxEntries + Math.max(1, maxEntries / 10);
+        Iterator<String> it = entries.keySet().iterator();
+        while (toDrop-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.orbyq.backend.controller;
+
+import com.orbyq.backend.config.CurrentUser;
+import com.orbyq.backend.dto.ActivityFeedDTO;
+import com.orbyq.backend.service.ActivityService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/activity")
+public class ActivityController {
+
+    @Autowired
+    private ActivityService activityService;
+
+    @GetMapping
+    public ActivityFeedDTO getActivity(
+            CurrentUser currentUser,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String action
+    ) {
+        return activityService.getFeed(currentUser, cursor, size, action);
+    }
+}
@@ -0,0 +1,90 @@
+package com.orbyq.backend.controller;
+
+import com.orbyq.backend.model.Blob;
+import com.orbyq.backend.service.BlobStore;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+
+// Serves blob store content. The URL is the SHA-256 of the bytes, so a response never changes and can be cached
+// for good; knowing the hash is what grants access, the same way the canvas item holding it hands it out.
+// Conditional requests are answered from the blob row alone, and a single Range lets a client resume a download.
+@RestController
+@RequestMapping("/api/blobs")
+public class BlobController {
+
+    // Tomcat's sendfile hooks: with these set the connector writes the file itself with sendfile(2) once the
+    // servlet returns, so the bytes never pass through the JVM
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @GetMapping("/{hash}")
+    public void getBlob(
+            @PathVariable String hash,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        Blob blob = blobStore.find(hash);
+        Path path = blobStore.path(blob.getHash());
+        if (!Files.isRegularFile(path)) {
+            throw new EntityNotFoundException("Blob not found: " + hash);
+        }
+
+        String etag = "\"" + blob.getHash() + "\"";
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        // An uploaded SVG must not run script in the API's origin
+        response.setHeader("Content-Security-Policy", "default-src 'none'; style-src 'unsafe-inline'; sandbox");
+        // Content never changes under a hash, so the first upload time is its modification time for good
+        long lastModified = blob.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        ByteRanges.Slice slice = ByteRanges.select(request, response, blob.getSize(), etag);
+        if (slice == null) {
+            return;
+        }
+        response.setContentType(blob.getContentType());
+        response.setContentLengthLong(slice.length());
+        if ("HEAD".equals(request.getMethod()) || slice.length() == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, slice.start());
+            request.setAttribute(SENDFILE_END, slice.end());
+            return;
+        }
+        // Without sendfile, transferTo still avoids a copy through a Java buffer where the channel allows it
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = slice.start();
+            while (position < slice.end()) {
+                position += channel.transferTo(position, slice.end() - position, out);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.orbyq.backend.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+// Range handling for the binary endpoints. A single byte range is served as a 206; anything else (no Range, a
+// multi-range or malformed header, or an If-Range that no longer matches the strong ETag) gets the whole body,
+// which RFC 9110 allows a server to do.
+final class ByteRanges {
+
+    private ByteRanges() {
+    }
+
+    // Bytes [start, end) of the representation
+    record Slice(long start, long end) {
+
+        long length() {
+            return end - start;
+        }
+    }
+
+    // Sets the status and range headers for the response; null means it was unsatisfiable and is already complete
+    static Slice select(HttpServletRequest request, HttpServletResponse response, long length, String etag) {
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        Slice whole = new Slice(0, length);
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !"GET".equals(request.getMethod())) {
+            return whole;
+        }
+        // Only a strong ETag validator is honoured; a date in If-Range just means the whole body
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.trim().equals(etag)) {
+            return whole;
+        }
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            return whole;
+        }
+        if (ranges.size() != 1) {
+            return whole;
+        }
+
+        long start = -1;
+        long end = -1;
+        try {
+            start = ranges.get(0).getRangeStart(length);
+            end = ranges.get(0).getRangeEnd(length);
+        } catch (IllegalArgumentException e) {
+            // Starts at or past the end
+        }
+        if (start < 0 || start > end) {
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.setContentLength(0);
+            return null;
+        }
+        response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        return new Slice(start, end + 1);
+    }
+}
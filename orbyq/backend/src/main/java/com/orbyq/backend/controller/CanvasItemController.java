@@ -1,20 +1,17 @@
 package com.orbyq.backend.controller;
 
+import com.orbyq.backend.config.CurrentUser;
 import com.orbyq.backend.dto.CanvasDTO;
 import com.orbyq.backend.dto.CanvasItemDTO;
-import com.orbyq.backend.model.Canvas;
-import com.orbyq.backend.model.CanvasItem;
+import com.orbyq.backend.service.BlobStore;
 import com.orbyq.backend.service.CanvasItemService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.Base64;
 import java.util.List;
 
 @RestController
@@ -23,48 +20,50 @@ public class CanvasItemController {
     @Autowired
     private CanvasItemService canvasItemService;
 
+    @Autowired
+    private BlobStore blobStore;
+
     @GetMapping("/canvases")
     @PreAuthorize("isAuthenticated()")
     public List<CanvasDTO.CanvasInfoDTO> getUserCanvases(
-            @AuthenticationPrincipal UserDetails userDetails
+            CurrentUser currentUser
     ) {
-        return canvasItemService.getUserCanvases(userDetails.getUsername());
+        return canvasItemService.getUserCanvases(currentUser);
     }
 
     @PostMapping("/canvas/new")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Canvas> createNewCanvas(
-            @AuthenticationPrincipal UserDetails userDetails,
+    public ResponseEntity<CanvasDTO.CanvasInfoDTO> createNewCanvas(
+            CurrentUser currentUser,
             @RequestParam(value = "title", defaultValue = "Untitled Canvas") String title
     ) {
-        Canvas canvas = canvasItemService.createCanvas(userDetails.getUsername(), title);
-        return ResponseEntity.ok(canvas);
+        return ResponseEntity.ok(canvasItemService.createCanvas(currentUser, title));
     }
 
     @PutMapping("/canvas/{canvasId}/title")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> updateCanvasTitle(
-            @AuthenticationPrincipal UserDetails userDetails,
+            CurrentUser currentUser,
             @PathVariable String canvasId,
             @RequestParam String title
     ) {
-        canvasItemService.updateCanvasTitle(userDetails.getUsername(), canvasId, title);
+        canvasItemService.updateCanvasTitle(currentUser, canvasId, title);
         return ResponseEntity.ok().build();
     }
 
     @GetMapping("/canvas/{canvasId}")
     @PreAuthorize("isAuthenticated()")
     public CanvasDTO getCanvasItems(
-            @AuthenticationPrincipal UserDetails userDetails,
+            CurrentUser currentUser,
             @PathVariable String canvasId
     ) {
-        return canvasItemService.getCanvasItems(userDetails.getUsername(), canvasId);
+        return canvasItemService.getCanvasItems(currentUser, canvasId);
     }
 
     @PostMapping(value = "/canvas/{canvasId}", consumes = "application/json")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<CanvasItem> createCanvasItemJson(
-            @AuthenticationPrincipal UserDetails userDetails,
+    public ResponseEntity<CanvasItemDTO> createCanvasItemJson(
+            CurrentUser currentUser,
             @PathVariable String canvasId,
             @RequestBody CanvasItemDTO canvasItemDTO
     ) {
@@ -74,17 +73,17 @@ public class CanvasItemController {
         if (canvasItemDTO.getType() == null || canvasItemDTO.getType().trim().isEmpty()) {
             throw new IllegalArgumentException("Type is required");
         }
-        if (canvasItemDTO.getType().equals("image") && (canvasItemDTO.getContent() == null || !canvasItemDTO.getContent().startsWith("data:image/"))) {
-            throw new IllegalArgumentException("Image items must have content with a valid data URI when created via JSON");
+        if (canvasItemDTO.getType().equals("image") && (canvasItemDTO.getContent() == null
+                || !canvasItemDTO.getContent().startsWith("data:image/") && BlobStore.hashOf(canvasItemDTO.getContent()) == null)) {
+            throw new IllegalArgumentException("Image items must have content with a valid data URI or blob URL when created via JSON");
         }
-        CanvasItem item = canvasItemService.createCanvasItem(userDetails.getUsername(), canvasId, canvasItemDTO);
-        return ResponseEntity.ok(item);
+        return ResponseEntity.ok(canvasItemService.createCanvasItem(currentUser, canvasId, canvasItemDTO));
     }
 
     @PostMapping(value = "/canvas/{canvasId}", consumes = "multipart/form-data")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<CanvasItem> createCanvasItemMultipart(
-            @AuthenticationPrincipal UserDetails userDetails,
+    public ResponseEntity<CanvasItemDTO> createCanvasItemMultipart(
+            CurrentUser currentUser,
             @PathVariable String canvasId,
             @RequestPart(value = "canvasItem", required = true) CanvasItemDTO canvasItemDTO,
             @RequestPart(value = "file", required = false) MultipartFile file
@@ -95,67 +94,70 @@ public class CanvasItemController {
         if (canvasItemDTO.getType() == null || canvasItemDTO.getType().trim().isEmpty()) {
             throw new IllegalArgumentException("Type is required");
         }
-        if (file != null && !file.isEmpty()) {
-            if (!canvasItemDTO.getType().equals("image")) {
-                throw new IllegalArgumentException("File upload is only supported for image items");
-            }
-            String base64Image = Base64.getEncoder().encodeToString(file.getBytes());
-            canvasItemDTO.setContent("data:image/" + file.getOriginalFilename().substring(file.getOriginalFilename().lastIndexOf(".") + 1) + ";base64," + base64Image);
+        if (file == null || file.isEmpty()) {
+            return ResponseEntity.ok(canvasItemService.createCanvasItem(currentUser, canvasId, canvasItemDTO));
+        }
+        if (!canvasItemDTO.getType().equals("image")) {
+            throw new IllegalArgumentException("File upload is only supported for image items");
+        }
+        // Hashed on its way to disk; the bytes never sit in memory or in the canvas item row
+        try (BlobStore.Staged upload = blobStore.stage(file)) {
+            return ResponseEntity.ok(canvasItemService.createCanvasItem(currentUser, canvasId, canvasItemDTO, upload));
         }
-        CanvasItem item = canvasItemService.createCanvasItem(userDetails.getUsername(), canvasId, canvasItemDTO);
-        return ResponseEntity.ok(item);
     }
 
     @PutMapping(value = "/canvas/{canvasId}/{itemId}", consumes = "application/json")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> updateCanvasItemJson(
-            @AuthenticationPrincipal UserDetails userDetails,
+            CurrentUser currentUser,
             @PathVariable String canvasId,
             @PathVariable String itemId,
             @RequestBody CanvasItemDTO canvasItemDTO
     ) {
-        canvasItemService.updateCanvasItem(userDetails.getUsername(), canvasId, itemId, canvasItemDTO);
+        canvasItemService.updateCanvasItem(currentUser, canvasId, itemId, canvasItemDTO);
         return ResponseEntity.ok().build();
     }
 
     @PutMapping(value = "/canvas/{canvasId}/{itemId}", consumes = "multipart/form-data")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> updateCanvasItemMultipart(
-            @AuthenticationPrincipal UserDetails userDetails,
+            CurrentUser currentUser,
             @PathVariable String canvasId,
             @PathVariable String itemId,
             @RequestPart(value = "canvasItem", required = true) CanvasItemDTO canvasItemDTO,
             @RequestPart(value = "file", required = false) MultipartFile file
     ) throws IOException {
-        if (file != null && !file.isEmpty()) {
-            if (!canvasItemDTO.getType().equals("image")) {
-                throw new IllegalArgumentException("File upload is only supported for image items");
-            }
-            String base64Image = Base64.getEncoder().encodeToString(file.getBytes());
-            canvasItemDTO.setContent("data:image/" + file.getOriginalFilename().substring(file.getOriginalFilename().lastIndexOf(".") + 1) + ";base64," + base64Image);
+        if (file == null || file.isEmpty()) {
+            canvasItemService.updateCanvasItem(currentUser, canvasId, itemId, canvasItemDTO);
+            return ResponseEntity.ok().build();
+        }
+        if (!canvasItemDTO.getType().equals("image")) {
+            throw new IllegalArgumentException("File upload is only supported for image items");
+        }
+        try (BlobStore.Staged upload = blobStore.stage(file)) {
+            canvasItemService.updateCanvasItem(currentUser, canvasId, itemId, canvasItemDTO, upload);
         }
-        canvasItemService.updateCanvasItem(userDetails.getUsername(), canvasId, itemId, canvasItemDTO);
         return ResponseEntity.ok().build();
     }
 
     @DeleteMapping("/canvas/{canvasId}/{itemId}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> deleteCanvasItem(
-            @AuthenticationPrincipal UserDetails userDetails,
+            CurrentUser currentUser,
             @PathVariable String canvasId,
             @PathVariable String itemId
     ) {
-        canvasItemService.deleteCanvasItem(userDetails.getUsername(), canvasId, itemId);
+        canvasItemService.deleteCanvasItem(currentUser, canvasId, itemId);
         return ResponseEntity.ok().build();
     }
 
     @DeleteMapping("/canvas/{canvasId}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> deleteCanvas(
-            @AuthenticationPrincipal UserDetails userDetails,
+            CurrentUser currentUser,
             @PathVariable String canvasId
     ) {
-        canvasItemService.deleteCanvas(userDetails.getUsername(), canvasId);
+        canvasItemService.deleteCanvas(currentUser, canvasId);
         return ResponseEntity.ok().build();
     }
 }
\ No newline at end of file
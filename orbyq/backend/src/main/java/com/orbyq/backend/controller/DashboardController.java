@@ -1,11 +1,10 @@
 package com.orbyq.backend.controller;
 
+import com.orbyq.backend.config.CurrentUser;
 import com.orbyq.backend.dto.DashboardSummaryDTO;
 import com.orbyq.backend.service.DashboardService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -18,8 +17,8 @@ public class DashboardController {
 
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public DashboardSummaryDTO getDashboardSummary(@AuthenticationPrincipal UserDetails userDetails) {
-        return dashboardService.getDashboardSummary(userDetails.getUsername());
+    public DashboardSummaryDTO getDashboardSummary(CurrentUser currentUser) {
+        return dashboardService.getDashboardSummary(currentUser);
     }
 
     @GetMapping("/ping")
@@ -1,15 +1,20 @@
 package com.orbyq.backend.controller;
 
+import com.orbyq.backend.config.CurrentUser;
 import com.orbyq.backend.dto.DocumentDTO;
-import com.orbyq.backend.model.Document;
+import com.orbyq.backend.repository.DocumentRepository;
 import com.orbyq.backend.service.DocumentService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -21,39 +26,70 @@ public class DocumentController {
     @GetMapping("/documents")
     @PreAuthorize("isAuthenticated()")
     public List<DocumentDTO> getUserDocuments(
-            @AuthenticationPrincipal UserDetails userDetails
+            CurrentUser currentUser
     ) {
-        return documentService.getUserDocuments(userDetails.getUsername());
+        return documentService.getUserDocuments(currentUser);
+    }
+
+    // The body alone, as a cacheable text resource: a strong ETag from the content hash for revalidation, and a
+    // single Range for resuming. No Last-Modified, as documents only track the day they changed.
+    @GetMapping("/document/{documentId}/content")
+    @PreAuthorize("isAuthenticated()")
+    public void getDocumentContent(
+            CurrentUser currentUser,
+            @PathVariable String documentId,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        String etag = "\"" + documentService.getContentHash(currentUser, documentId) + "\"";
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+
+        DocumentRepository.ContentView content = documentService.getContent(currentUser, documentId);
+        etag = "\"" + content.contentHash() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        byte[] body = content.content() != null ? content.content().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        ByteRanges.Slice slice = ByteRanges.select(request, response, body.length, etag);
+        if (slice == null) {
+            return;
+        }
+        response.setContentType("text/plain;charset=UTF-8");
+        response.setContentLength((int) slice.length());
+        if (!"HEAD".equals(request.getMethod())) {
+            response.getOutputStream().write(body, (int) slice.start(), (int) slice.length());
+        }
     }
 
     @PostMapping("/document/new")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Document> createDocument(
-            @AuthenticationPrincipal UserDetails userDetails,
+    public ResponseEntity<DocumentDTO> createDocument(
+            CurrentUser currentUser,
             @RequestBody DocumentDTO documentDTO
     ) {
-        Document document = documentService.createDocument(userDetails.getUsername(), documentDTO);
-        return ResponseEntity.ok(document);
+        return ResponseEntity.ok(documentService.createDocument(currentUser, documentDTO));
     }
 
     @PutMapping("/document/{documentId}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> updateDocument(
-            @AuthenticationPrincipal UserDetails userDetails,
+            CurrentUser currentUser,
             @PathVariable String documentId,
             @RequestBody DocumentDTO documentDTO
     ) {
-        documentService.updateDocument(userDetails.getUsername(), documentId, documentDTO);
+        documentService.updateDocument(currentUser, documentId, documentDTO);
         return ResponseEntity.ok().build();
     }
 
     @DeleteMapping("/document/{documentId}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> deleteDocument(
-            @AuthenticationPrincipal UserDetails userDetails,
+            CurrentUser currentUser,
             @PathVariable String documentId
     ) {
-        documentService.deleteDocument(userDetails.getUsername(), documentId);
+        documentService.deleteDocument(currentUser, documentId);
         return ResponseEntity.ok().build();
     }
 }
\ No newline at end of file
@@ -1,13 +1,13 @@
 package com.orbyq.backend.controller;
 
+import com.orbyq.backend.config.CurrentUser;
 import com.orbyq.backend.dto.MoodBoardItemDTO;
-import com.orbyq.backend.model.MoodBoardItem;
+import com.orbyq.backend.service.BlobStore;
 import com.orbyq.backend.service.MoodBoardService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -20,31 +20,58 @@ public class MoodBoardController {
     @Autowired
     private MoodBoardService moodBoardService;
 
+    @Autowired
+    private BlobStore blobStore;
+
     @GetMapping("/moodboard")
     @PreAuthorize("isAuthenticated()")
     public List<MoodBoardItemDTO> getUserMoodBoardItems(
-            @AuthenticationPrincipal UserDetails userDetails
+            CurrentUser currentUser
     ) {
-        return moodBoardService.getUserMoodBoardItems(userDetails.getUsername());
+        return moodBoardService.getUserMoodBoardItems(currentUser);
     }
 
     @PostMapping(value = "/moodboard/new", consumes = "multipart/form-data")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<MoodBoardItem> createMoodBoardItem(
-            @AuthenticationPrincipal UserDetails userDetails,
+    public ResponseEntity<MoodBoardItemDTO> createMoodBoardItem(
+            CurrentUser currentUser,
             @RequestPart(value = "file", required = true) MultipartFile file
     ) throws IOException {
-        MoodBoardItem item = moodBoardService.createMoodBoardItem(userDetails.getUsername(), file);
-        return ResponseEntity.ok(item);
+        try (BlobStore.Staged upload = blobStore.stage(file)) {
+            return ResponseEntity.ok(moodBoardService.createMoodBoardItem(currentUser, upload));
+        }
+    }
+
+    // The file as the raw request body: read from the connection straight into the blob store, without the
+    // multipart parser first spooling it to a temporary file
+    @PostMapping(value = "/moodboard/new", consumes = "image/*")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<MoodBoardItemDTO> uploadMoodBoardItem(
+            CurrentUser currentUser,
+            HttpServletRequest request
+    ) throws IOException {
+        try (BlobStore.Staged upload = blobStore.stage(request.getInputStream(), request.getContentType())) {
+            return ResponseEntity.ok(moodBoardService.createMoodBoardItem(currentUser, upload));
+        }
+    }
+
+    // An image already in the blob store, referenced by its URL (e.g. the result of a resumable upload)
+    @PostMapping(value = "/moodboard/new", consumes = "application/json")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<MoodBoardItemDTO> createMoodBoardItemFromBlob(
+            CurrentUser currentUser,
+            @RequestBody MoodBoardItemDTO request
+    ) {
+        return ResponseEntity.ok(moodBoardService.createMoodBoardItem(currentUser, request.getImageUrl()));
     }
 
     @DeleteMapping("/moodboard/{itemId}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> deleteMoodBoardItem(
-            @AuthenticationPrincipal UserDetails userDetails,
+            CurrentUser currentUser,
             @PathVariable String itemId
     ) {
-        moodBoardService.deleteMoodBoardItem(userDetails.getUsername(), itemId);
+        moodBoardService.deleteMoodBoardItem(currentUser, itemId);
         return ResponseEntity.ok().build();
     }
 }
\ No newline at end of file
@@ -1,13 +1,11 @@
 package com.orbyq.backend.controller;
 
+import com.orbyq.backend.config.CurrentUser;
 import com.orbyq.backend.dto.TaskBoardDTO;
-import com.orbyq.backend.model.Task;
 import com.orbyq.backend.service.TaskService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
@@ -21,14 +19,14 @@ public class TaskController {
 
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public TaskBoardDTO getTaskBoard(@AuthenticationPrincipal UserDetails userDetails) {
-        return taskService.getTaskBoard(userDetails.getUsername());
+    public TaskBoardDTO getTaskBoard(CurrentUser currentUser) {
+        return taskService.getTaskBoard(currentUser);
     }
 
     @PostMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Task> createTask(
-        @AuthenticationPrincipal UserDetails userDetails,
+    public ResponseEntity<TaskBoardDTO.TaskDTO> createTask(
+        CurrentUser currentUser,
         @RequestBody Map<String, String> request
     ) {
         // Validate that taskId is not present in the request
@@ -54,8 +52,8 @@ public class TaskController {
             throw new IllegalArgumentException("Due date cannot be in the past");
         }
 
-        Task task = taskService.createTask(
-            userDetails.getUsername(),
+        TaskBoardDTO.TaskDTO task = taskService.createTask(
+            currentUser,
             request.get("title"),
             request.get("description"),
             request.get("priority"),
@@ -68,7 +66,7 @@ public class TaskController {
     @PutMapping("/{taskId}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> updateTask(
-        @AuthenticationPrincipal UserDetails userDetails,
+        CurrentUser currentUser,
         @PathVariable String taskId,
         @RequestBody Map<String, String> request
     ) {
@@ -91,7 +89,7 @@ public class TaskController {
         }
 
         taskService.updateTask(
-            userDetails.getUsername(),
+            currentUser,
             taskId,
             request.get("title"),
             request.get("description"),
@@ -105,17 +103,17 @@ public class TaskController {
     @DeleteMapping("/{taskId}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> deleteTask(
-        @AuthenticationPrincipal UserDetails userDetails,
+        CurrentUser currentUser,
         @PathVariable String taskId
     ) {
-        taskService.deleteTask(userDetails.getUsername(), taskId);
+        taskService.deleteTask(currentUser, taskId);
         return ResponseEntity.ok().build();
     }
 
     @PatchMapping("/{taskId}/status")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> updateTaskStatus(
-        @AuthenticationPrincipal UserDetails userDetails,
+        CurrentUser currentUser,
         @PathVariable String taskId,
         @RequestBody Map<String, String> request
     ) {
@@ -123,7 +121,7 @@ public class TaskController {
             throw new IllegalArgumentException("Status is required");
         }
 
-        taskService.updateTaskStatus(userDetails.getUsername(), taskId, request.get("status"));
+        taskService.updateTaskStatus(currentUser, taskId, request.get("status"));
         return ResponseEntity.ok().build();
     }
 }
\ No newline at end of file
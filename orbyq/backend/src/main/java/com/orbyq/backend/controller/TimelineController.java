@@ -1,9 +1,9 @@
 package com.orbyq.backend.controller;
 
+import com.orbyq.backend.config.CurrentUser;
 import com.orbyq.backend.dto.TimelineDTO;
 import com.orbyq.backend.service.TimelineService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -15,22 +15,24 @@ public class TimelineController {
 
     @GetMapping
     public TimelineDTO getTimeline(
-        Authentication authentication,
+        CurrentUser currentUser,
         @RequestParam(value = "status", required = false) String status,
-        @RequestParam(value = "priority", required = false) String priority
+        @RequestParam(value = "priority", required = false) String priority,
+        @RequestParam(value = "from", required = false) String from,
+        @RequestParam(value = "to", required = false) String to,
+        @RequestParam(value = "projectPage", defaultValue = "0") int projectPage,
+        @RequestParam(value = "projectSize", required = false) Integer projectSize
     ) {
-        String username = authentication.getName();
-        return timelineService.getTimelineData(username, status, priority);
+        return timelineService.getTimelineData(currentUser, status, priority, from, to, projectPage, projectSize);
     }
 
     @PostMapping("/task")
     public void addTask(
         @RequestBody TaskRequest taskRequest,
-        Authentication authentication
+        CurrentUser currentUser
     ) {
-        String username = authentication.getName();
         timelineService.addTask(
-            username,
+            currentUser,
             taskRequest.title,
             taskRequest.description,
             taskRequest.priority,
@@ -43,11 +45,10 @@ public class TimelineController {
     @PostMapping("/project/color")
     public void updateProjectColor(
         @RequestBody ColorRequest colorRequest,
-        Authentication authentication
+        CurrentUser currentUser
     ) {
-        String username = authentication.getName();
         timelineService.updateProjectColor(
-            username,
+            currentUser,
             colorRequest.projectId,
             colorRequest.color
         );
@@ -56,11 +57,10 @@ public class TimelineController {
     @PostMapping("/project")
     public void createProject(
         @RequestBody ProjectRequest projectRequest,
-        Authentication authentication
+        CurrentUser currentUser
     ) {
-        String username = authentication.getName();
         timelineService.createProject(
-            username,
+            currentUser,
             projectRequest.name,
             projectRequest.color
         );
@@ -1,8 +1,8 @@
 package com.orbyq.backend.controller;
 
+import com.orbyq.backend.config.CurrentUser;
 import com.orbyq.backend.service.TodoService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -14,27 +14,32 @@ public class TodoController {
 
     @GetMapping
     public TodoService.PaginatedTodosDTO getTodos(
-            Authentication authentication,
+            CurrentUser currentUser,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDirection,
             @RequestParam(required = false) Boolean completed,
             @RequestParam(required = false) String priority,
-            @RequestParam(required = false) String category
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String count,
+            @RequestParam(defaultValue = "false") boolean facets
     ) {
-        String username = authentication.getName();
-        return todoService.getTodos(username, page, size, sortBy, sortDirection, completed, priority, category);
+        // Any cursor parameter, even an empty one for the first page, switches to keyset paging and ignores page
+        if (cursor != null) {
+            return todoService.getTodosAfter(currentUser, cursor, size, sortBy, sortDirection, completed, priority, category, count, facets);
+        }
+        return todoService.getTodos(currentUser, page, size, sortBy, sortDirection, completed, priority, category, facets);
     }
 
     @PostMapping
     public void addTodo(
             @RequestBody TodoRequest todoRequest,
-            Authentication authentication
+            CurrentUser currentUser
     ) {
-        String username = authentication.getName();
         todoService.addTodo(
-                username,
+                currentUser,
                 todoRequest.title,
                 todoRequest.priority,
                 todoRequest.dueDate,
@@ -46,21 +51,19 @@ public class TodoController {
     public void updateTodoCompletion(
             @PathVariable String todoId,
             @RequestBody CompletionRequest completionRequest,
-            Authentication authentication
+            CurrentUser currentUser
     ) {
-        String username = authentication.getName();
-        todoService.updateTodoCompletion(username, todoId, completionRequest.completed);
+        todoService.updateTodoCompletion(currentUser, todoId, completionRequest.completed);
     }
 
     @PutMapping("/{todoId}")
     public void updateTodo(
             @PathVariable String todoId,
             @RequestBody TodoRequest todoRequest,
-            Authentication authentication
+            CurrentUser currentUser
     ) {
-        String username = authentication.getName();
         todoService.updateTodo(
-                username,
+                currentUser,
                 todoId,
                 todoRequest.title,
                 todoRequest.priority,
@@ -72,10 +75,9 @@ public class TodoController {
     @DeleteMapping("/{todoId}")
     public void deleteTodo(
             @PathVariable String todoId,
-            Authentication authentication
+            CurrentUser currentUser
     ) {
-        String username = authentication.getName();
-        todoService.deleteTodo(username, todoId);
+        todoService.deleteTodo(currentUser, todoId);
     }
 
     public static class TodoRequest {
@@ -0,0 +1,69 @@
+package com.orbyq.backend.controller;
+
+import com.orbyq.backend.config.CurrentUser;
+import com.orbyq.backend.dto.UploadSessionDTO;
+import com.orbyq.backend.service.UploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadController {
+    @Autowired
+    private UploadService uploadService;
+
+    @PostMapping
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<UploadSessionDTO> createSession(
+            CurrentUser currentUser,
+            @RequestBody UploadSessionDTO request
+    ) {
+        return ResponseEntity.ok(uploadService.createSession(currentUser, request.getSize(), request.getContentType()));
+    }
+
+    @GetMapping("/{sessionId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<UploadSessionDTO> getSession(
+            CurrentUser currentUser,
+            @PathVariable String sessionId
+    ) throws IOException {
+        return ResponseEntity.ok(uploadService.getSession(currentUser, sessionId));
+    }
+
+    // The chunk is the raw body, checked against its Content-Digest before it counts as received
+    @PutMapping("/{sessionId}/chunks/{index}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<UploadSessionDTO> putChunk(
+            CurrentUser currentUser,
+            @PathVariable String sessionId,
+            @PathVariable int index,
+            @RequestHeader(value = "Content-Digest", required = false) String contentDigest,
+            HttpServletRequest request
+    ) throws IOException {
+        return ResponseEntity.ok(uploadService.putChunk(currentUser, sessionId, index, request.getInputStream(), contentDigest));
+    }
+
+    @PostMapping("/{sessionId}/commit")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<UploadSessionDTO> commit(
+            CurrentUser currentUser,
+            @PathVariable String sessionId
+    ) throws IOException {
+        return ResponseEntity.ok(uploadService.commit(currentUser, sessionId));
+    }
+
+    @DeleteMapping("/{sessionId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Void> abort(
+            CurrentUser currentUser,
+            @PathVariable String sessionId
+    ) throws IOException {
+        uploadService.abort(currentUser, sessionId);
+        return ResponseEntity.ok().build();
+    }
+}
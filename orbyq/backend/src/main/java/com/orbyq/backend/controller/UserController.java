@@ -2,6 +2,7 @@ package com.orbyq.backend.controller;
 
 import com.orbyq.backend.model.User;
 import com.orbyq.backend.repository.UserRepository;
+import com.orbyq.backend.service.PrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -18,6 +19,9 @@ public class UserController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     @GetMapping("/me")
     public ResponseEntity<Map<String, Object>> getUserDetails() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -46,6 +50,7 @@ public class UserController {
         }
 
         User user = userOpt.get();
+        boolean emailChanged = false;
         if (updates.containsKey("name")) {
             user.setName(updates.get("name"));
         }
@@ -54,13 +59,21 @@ public class UserController {
             if (!newEmail.equals(user.getEmail()) && userRepository.existsByEmail(newEmail)) {
                 return ResponseEntity.status(400).body(Map.of("error", "Email already in use"));
             }
+            emailChanged = !newEmail.equals(user.getEmail());
             user.setEmail(newEmail);
         }
         if (updates.containsKey("bio")) {
             user.setBio(updates.get("bio"));
         }
 
+        // The email is the token subject, so tokens issued under the old one are retired
+        if (emailChanged) {
+            user.setSecurityVersion(user.getSecurityVersion() + 1);
+        }
         userRepository.save(user);
+        if (emailChanged) {
+            principalCache.invalidate(user.getId());
+        }
         return ResponseEntity.ok(Map.of("message", "Profile updated successfully"));
     }
 
@@ -75,6 +88,7 @@ public class UserController {
 
         User user = userOpt.get();
         userRepository.delete(user);
+        principalCache.invalidate(user.getId());
         return ResponseEntity.ok(Map.of("message", "Account deleted successfully"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.orbyq.backend.dto;
+
+import java.util.List;
+
+public class ActivityFeedDTO {
+    private List<DashboardSummaryDTO.ActivityDTO> activities;
+    // Opaque; pass back as ?cursor= for the next page. Null when there is nothing older.
+    private String nextCursor;
+
+    public ActivityFeedDTO(List<DashboardSummaryDTO.ActivityDTO> activities, String nextCursor) {
+        this.activities = activities;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<DashboardSummaryDTO.ActivityDTO> getActivities() { return activities; }
+    public void setActivities(List<DashboardSummaryDTO.ActivityDTO> activities) { this.activities = activities; }
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -9,11 +9,14 @@ public class CanvasDTO {
     public static class CanvasInfoDTO {
         private String id;
         private String title;
+        private long version;
 
         public String getId() { return id; }
         public void setId(String id) { this.id = id; }
         public String getTitle() { return title; }
         public void setTitle(String title) { this.title = title; }
+        public long getVersion() { return version; }
+        public void setVersion(long version) { this.version = version; }
     }
 
     public CanvasDTO() {}
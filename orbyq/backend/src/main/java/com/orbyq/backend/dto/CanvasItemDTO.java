@@ -10,6 +10,7 @@ public class CanvasItemDTO {
     private double width;
     private double height;
     private StyleDTO style;
+    private Long version;
 
     public static class StyleDTO {
         private String fontSize;
@@ -55,4 +56,6 @@ public class CanvasItemDTO {
     public void setHeight(double height) { this.height = height; }
     public StyleDTO getStyle() { return style; }
     public void setStyle(StyleDTO style) { this.style = style; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
\ No newline at end of file
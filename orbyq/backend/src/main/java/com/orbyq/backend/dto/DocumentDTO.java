@@ -8,6 +8,7 @@ public class DocumentDTO {
     private String content;
     private LocalDate createdAt;
     private LocalDate updatedAt;
+    private Long version;
 
     public DocumentDTO() {}
 
@@ -21,4 +22,6 @@ public class DocumentDTO {
     public void setCreatedAt(LocalDate createdAt) { this.createdAt = createdAt; }
     public LocalDate getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDate updatedAt) { this.updatedAt = updatedAt; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
\ No newline at end of file
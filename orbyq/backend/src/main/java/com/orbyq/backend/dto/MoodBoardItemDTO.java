@@ -5,7 +5,12 @@ import java.time.LocalDate;
 public class MoodBoardItemDTO {
     private String id;
     private String imageUrl;
+    private String thumbnailUrl;
+    private String previewUrl;
+    private Integer width;
+    private Integer height;
     private LocalDate createdAt;
+    private long version;
 
     public MoodBoardItemDTO() {}
 
@@ -13,6 +18,16 @@ public class MoodBoardItemDTO {
     public void setId(String id) { this.id = id; }
     public String getImageUrl() { return imageUrl; }
     public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+    public String getThumbnailUrl() { return thumbnailUrl; }
+    public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+    public String getPreviewUrl() { return previewUrl; }
+    public void setPreviewUrl(String previewUrl) { this.previewUrl = previewUrl; }
+    public Integer getWidth() { return width; }
+    public void setWidth(Integer width) { this.width = width; }
+    public Integer getHeight() { return height; }
+    public void setHeight(Integer height) { this.height = height; }
     public LocalDate getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDate createdAt) { this.createdAt = createdAt; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
\ No newline at end of file
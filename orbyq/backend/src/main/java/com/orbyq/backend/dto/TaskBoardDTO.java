@@ -37,10 +37,11 @@ public class TaskBoardDTO {
         private String status;  // Added status field
         private int comments;
         private int attachments;
+        private long version;
 
         public TaskDTO() {}
 
-        public TaskDTO(String id, String title, String description, String priority, String dueDate, String status, int comments, int attachments) {
+        public TaskDTO(String id, String title, String description, String priority, String dueDate, String status, int comments, int attachments, long version) {
             this.id = id;
             this.title = title;
             this.description = description;
@@ -49,6 +50,7 @@ public class TaskBoardDTO {
             this.status = status;
             this.comments = comments;
             this.attachments = attachments;
+            this.version = version;
         }
 
         public String getId() { return id; }
@@ -67,6 +69,8 @@ public class TaskBoardDTO {
         public void setComments(int comments) { this.comments = comments; }
         public int getAttachments() { return attachments; }
         public void setAttachments(int attachments) { this.attachments = attachments; }
+        public long getVersion() { return version; }
+        public void setVersion(long version) { this.version = version; }
     }
 
     public TaskBoardDTO() {}
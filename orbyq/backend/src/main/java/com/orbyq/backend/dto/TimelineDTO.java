@@ -7,6 +7,7 @@ public class TimelineDTO {
     private List<ProjectDTO> projects;
     private List<MilestoneDTO> upcomingMilestones;
     private Map<String, Double> projectProgress;
+    private long totalProjects;
 
     public static class ProjectDTO {
         private String id;
@@ -83,4 +84,6 @@ public class TimelineDTO {
     public void setUpcomingMilestones(List<MilestoneDTO> upcomingMilestones) { this.upcomingMilestones = upcomingMilestones; }
     public Map<String, Double> getProjectProgress() { return projectProgress; }
     public void setProjectProgress(Map<String, Double> projectProgress) { this.projectProgress = projectProgress; }
+    public long getTotalProjects() { return totalProjects; }
+    public void setTotalProjects(long totalProjects) { this.totalProjects = totalProjects; }
 }
\ No newline at end of file
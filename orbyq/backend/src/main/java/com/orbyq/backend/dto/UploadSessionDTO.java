@@ -0,0 +1,53 @@
+package com.orbyq.backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class UploadSessionDTO {
+    private String id;
+    private long size;
+    private String contentType;
+    private int chunkSize;
+    private int chunkCount;
+    private List<Range> received;
+    private LocalDateTime expiresAt;
+    // Set once committed: the blob URL to hand to a canvas or mood board item
+    private String url;
+
+    // Bytes [start, end) already held by the server
+    public static class Range {
+        private long start;
+        private long end;
+
+        public Range() {}
+
+        public Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public long getStart() { return start; }
+        public void setStart(long start) { this.start = start; }
+        public long getEnd() { return end; }
+        public void setEnd(long end) { this.end = end; }
+    }
+
+    public UploadSessionDTO() {}
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public long getSize() { return size; }
+    public void setSize(long size) { this.size = size; }
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+    public int getChunkSize() { return chunkSize; }
+    public void setChunkSize(int chunkSize) { this.chunkSize = chunkSize; }
+    public int getChunkCount() { return chunkCount; }
+    public void setChunkCount(int chunkCount) { this.chunkCount = chunkCount; }
+    public List<Range> getReceived() { return received; }
+    public void setReceived(List<Range> received) { this.received = received; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+}
@@ -4,19 +4,21 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+// Range-partitioned by month on created_at (see ActivityLogPartitionManager); the database key is (created_at, id)
 @Entity
 @Table(name = "activity_logs")
 public class ActivityLog {
     @Id
-    @GeneratedValue
+    @UuidV7
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
     private String action;
     private String details;
+    @Column(nullable = false)
     private LocalDateTime createdAt;
 
     // Getters and setters
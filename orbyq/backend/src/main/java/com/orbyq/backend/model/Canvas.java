@@ -1,5 +1,6 @@
 package com.orbyq.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -10,10 +11,11 @@ import java.util.UUID;
 @Table(name = "canvases")
 public class Canvas {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
-    @ManyToOne
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
@@ -25,6 +27,8 @@ public class Canvas {
     @Version
     private long version;
 
+    // Never serialized: canvas items are read through the canvas load endpoint
+    @JsonIgnore
     @OneToMany(mappedBy = "canvas", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<CanvasItem> items = new ArrayList<>();
 
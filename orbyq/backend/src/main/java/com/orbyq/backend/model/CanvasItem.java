@@ -1,6 +1,8 @@
 package com.orbyq.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.LazyGroup;
 import java.time.LocalDate;
 import java.util.UUID;
 
@@ -8,19 +10,23 @@ import java.util.UUID;
 @Table(name = "canvas_items")
 public class CanvasItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "canvas_id", nullable = false)
     private Canvas canvas;
 
-    @ManyToOne
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
     private String type; 
     
+    // Text or a whole base64 image
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("content")
     @Column(columnDefinition = "TEXT")
     private String content;
 
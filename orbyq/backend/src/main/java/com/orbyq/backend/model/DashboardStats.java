@@ -0,0 +1,47 @@
+package com.orbyq.backend.model;
+
+import jakarta.persistence.*;
+
+// Per-user dashboard counters, kept in step with task/project writes and repaired by DashboardStatsReconciler
+@Entity
+@Table(name = "dashboard_stats")
+public class DashboardStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "task_count", nullable = false)
+    private long taskCount;
+
+    @Column(name = "completed_count", nullable = false)
+    private long completedCount;
+
+    @Column(name = "project_task_count", nullable = false)
+    private long projectTaskCount;
+
+    @Column(name = "project_completed_count", nullable = false)
+    private long projectCompletedCount;
+
+    @Column(name = "project_count", nullable = false)
+    private long projectCount;
+
+    @Column(name = "idea_count", nullable = false)
+    private long ideaCount;
+
+    // Getters and setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public long getTaskCount() { return taskCount; }
+    public void setTaskCount(long taskCount) { this.taskCount = taskCount; }
+    public long getCompletedCount() { return completedCount; }
+    public void setCompletedCount(long completedCount) { this.completedCount = completedCount; }
+    public long getProjectTaskCount() { return projectTaskCount; }
+    public void setProjectTaskCount(long projectTaskCount) { this.projectTaskCount = projectTaskCount; }
+    public long getProjectCompletedCount() { return projectCompletedCount; }
+    public void setProjectCompletedCount(long projectCompletedCount) { this.projectCompletedCount = projectCompletedCount; }
+    public long getProjectCount() { return projectCount; }
+    public void setProjectCount(long projectCount) { this.projectCount = projectCount; }
+    public long getIdeaCount() { return ideaCount; }
+    public void setIdeaCount(long ideaCount) { this.ideaCount = ideaCount; }
+}
@@ -8,10 +8,10 @@ import java.util.UUID;
 @Table(name = "ideas")
 public class Idea {
     @Id
-    @GeneratedValue
+    @UuidV7
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
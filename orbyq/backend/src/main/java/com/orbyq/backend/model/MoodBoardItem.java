@@ -1,6 +1,8 @@
 package com.orbyq.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.LazyGroup;
 import java.time.LocalDate;
 import java.util.UUID;
 
@@ -8,15 +10,28 @@ import java.util.UUID;
 @Table(name = "mood_board_items")
 public class MoodBoardItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
-    @ManyToOne
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("image")
     @Column(columnDefinition = "TEXT")
-    private String imageUrl; // Base64 encoded image
+    private String imageUrl; // Blob reference to the original
+
+    @Column(length = 80)
+    private String thumbnail;
+
+    @Column(length = 80)
+    private String preview;
+
+    private Integer width;
+
+    private Integer height;
 
     @Column(name = "created_at")
     private LocalDate createdAt;
@@ -31,6 +46,14 @@ public class MoodBoardItem {
     public void setUser(User user) { this.user = user; }
     public String getImageUrl() { return imageUrl; }
     public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+    public String getThumbnail() { return thumbnail; }
+    public void setThumbnail(String thumbnail) { this.thumbnail = thumbnail; }
+    public String getPreview() { return preview; }
+    public void setPreview(String preview) { this.preview = preview; }
+    public Integer getWidth() { return width; }
+    public void setWidth(Integer width) { this.width = width; }
+    public Integer getHeight() { return height; }
+    public void setHeight(Integer height) { this.height = height; }
     public LocalDate getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDate createdAt) { this.createdAt = createdAt; }
     public long getVersion() { return version; }
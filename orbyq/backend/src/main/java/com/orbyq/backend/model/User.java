@@ -4,8 +4,10 @@ import jakarta.persistence.*;
 import java.util.HashSet;
 import java.util.Set;
 
+// Roles are only needed when building a principal (login, refresh); those lookups use the User.roles graph
 @Entity
 @Table(name = "users")
+@NamedEntityGraph(name = "User.roles", attributeNodes = @NamedAttributeNode("roles"))
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -23,11 +25,15 @@ public class User {
     @Column(length = 200)
     private String bio;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
     @Column(name = "role")
     private Set<String> roles = new HashSet<>();
 
+    // Bumped whenever credentials, roles or the login email change; tokens minted with an older value are refused
+    @Column(name = "security_version", nullable = false, columnDefinition = "bigint default 0")
+    private long securityVersion;
+
     // Constructors
     public User() {}
 
@@ -87,4 +93,12 @@ public class User {
     public void setRoles(Set<String> roles) {
         this.roles = roles;
     }
+
+    public long getSecurityVersion() {
+        return securityVersion;
+    }
+
+    public void setSecurityVersion(long securityVersion) {
+        this.securityVersion = securityVersion;
+    }
 }
\ No newline at end of file
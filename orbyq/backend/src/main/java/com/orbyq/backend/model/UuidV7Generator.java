@@ -0,0 +1,62 @@
+package com.orbyq.backend.model;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// RFC 9562 version 7 UUIDs: 48 bits of Unix milliseconds, then the 12-bit rand_a field used as a counter
+// within the millisecond (method 1), then 62 random bits. Ids from this JVM are strictly increasing, both as
+// PostgreSQL compares uuids and under UUID.compareTo; if the clock steps back or a millisecond's counter runs
+// out, the timestamp is carried forward rather than reused.
+public class UuidV7Generator implements BeforeExecutionGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Last (milliseconds << 12 | counter) handed out
+    private static final AtomicLong LAST = new AtomicLong();
+
+    public static UUID next() {
+        long now = System.currentTimeMillis() << 12;
+        long previous;
+        long next;
+        do {
+            previous = LAST.get();
+            // A fresh millisecond starts its counter in the lower half, leaving room to count up
+            next = previous >= now ? previous + 1 : now | RANDOM.nextInt(0x800);
+        } while (!LAST.compareAndSet(previous, next));
+
+        long mostSignificant = (next >>> 12) << 16 | 0x7000L | (next & 0xFFFL);
+        long leastSignificant = RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    // When a version 7 id was generated, to the millisecond
+    public static Instant timestamp(UUID id) {
+        if (id.version() != 7) {
+            throw new IllegalArgumentException("Not a version 7 UUID: " + id);
+        }
+        return Instant.ofEpochMilli(id.getMostSignificantBits() >>> 16);
+    }
+
+    // The smallest version 7 id that can be generated at or after the instant, for "created since" range scans
+    public static UUID lowerBound(Instant instant) {
+        return new UUID(instant.toEpochMilli() << 16 | 0x7000L, 0x8000000000000000L);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -1,12 +1,44 @@
 package com.orbyq.backend.repository;
 
 import com.orbyq.backend.model.ActivityLog;
-import com.orbyq.backend.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
+// All feed queries seek on (user_id, created_at DESC, id DESC) and only read columns carried by that index,
+// so the newest page and page ten thousand cost the same.
 public interface ActivityLogRepository extends JpaRepository<ActivityLog, UUID> {
-    List<ActivityLog> findTop5ByUserOrderByCreatedAtDesc(User user);
-    List<ActivityLog> findTop5ByUserAndActionStartingWithOrderByCreatedAtDesc(User user, String actionPrefix);
-}
\ No newline at end of file
+
+    interface ActivityEntry {
+        UUID getId();
+        String getAction();
+        String getDetails();
+        LocalDateTime getCreatedAt();
+    }
+
+    @Query("SELECT a.id AS id, a.action AS action, a.details AS details, a.createdAt AS createdAt FROM ActivityLog a " +
+            "WHERE a.user.id = :userId ORDER BY a.createdAt DESC, a.id DESC")
+    List<ActivityEntry> findFeed(Long userId, Limit limit);
+
+    @Query("SELECT a.id AS id, a.action AS action, a.details AS details, a.createdAt AS createdAt FROM ActivityLog a " +
+            "WHERE a.user.id = :userId AND (a.createdAt, a.id) < (:createdAt, :id) ORDER BY a.createdAt DESC, a.id DESC")
+    List<ActivityEntry> findFeedBefore(Long userId, LocalDateTime createdAt, UUID id, Limit limit);
+
+    // prefix is a LIKE pattern; callers escape it with '\'
+    @Query("SELECT a.id AS id, a.action AS action, a.details AS details, a.createdAt AS createdAt FROM ActivityLog a " +
+            "WHERE a.user.id = :userId AND a.action LIKE :prefix ESCAPE '\\' ORDER BY a.createdAt DESC, a.id DESC")
+    List<ActivityEntry> findFeedByAction(Long userId, String prefix, Limit limit);
+
+    @Query("SELECT a.id AS id, a.action AS action, a.details AS details, a.createdAt AS createdAt FROM ActivityLog a " +
+            "WHERE a.user.id = :userId AND a.action LIKE :prefix ESCAPE '\\' AND (a.createdAt, a.id) < (:createdAt, :id) " +
+            "ORDER BY a.createdAt DESC, a.id DESC")
+    List<ActivityEntry> findFeedByActionBefore(Long userId, String prefix, LocalDateTime createdAt, UUID id, Limit limit);
+
+    // Literal prefix so the planner can match the partial project index
+    @Query("SELECT a.id AS id, a.action AS action, a.details AS details, a.createdAt AS createdAt FROM ActivityLog a " +
+            "WHERE a.user.id = :userId AND a.action LIKE 'Project%' ORDER BY a.createdAt DESC, a.id DESC")
+    List<ActivityEntry> findProjectFeed(Long userId, Limit limit);
+}
@@ -0,0 +1,48 @@
+package com.orbyq.backend.repository;
+
+import com.orbyq.backend.model.Blob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface BlobRepository extends JpaRepository<Blob, String> {
+
+    // Every reference change row-locks the blob, so a sweep of the same hash either finishes first or sees it
+    @Modifying
+    @Query(value = "INSERT INTO blobs (hash, size, content_type, ref_count, created_at, updated_at) " +
+            "VALUES (:hash, :size, :contentType, 1, :now, :now) " +
+            "ON CONFLICT (hash) DO UPDATE SET ref_count = blobs.ref_count + 1, updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    int acquireOrInsert(String hash, long size, String contentType, LocalDateTime now);
+
+    @Modifying
+    @Query(value = "INSERT INTO blobs (hash, size, content_type, ref_count, created_at, updated_at) " +
+            "VALUES (:hash, :size, :contentType, 0, :now, :now) " +
+            "ON CONFLICT (hash) DO UPDATE SET updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    int insertOrTouch(String hash, long size, String contentType, LocalDateTime now);
+
+    @Modifying
+    @Query(value = "UPDATE blobs SET ref_count = ref_count + 1, updated_at = :now WHERE hash = :hash", nativeQuery = true)
+    int acquire(String hash, LocalDateTime now);
+
+    @Modifying
+    @Query(value = "UPDATE blobs SET ref_count = ref_count - 1, updated_at = :now WHERE hash = :hash AND ref_count > 0",
+            nativeQuery = true)
+    int release(String hash, LocalDateTime now);
+
+    @Query(value = "SELECT hash FROM blobs WHERE ref_count = 0 AND updated_at < :before ORDER BY updated_at LIMIT :limit",
+            nativeQuery = true)
+    List<String> findUnreferenced(LocalDateTime before, int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM blobs WHERE hash = :hash AND ref_count = 0 AND updated_at < :before", nativeQuery = true)
+    int deleteUnreferenced(String hash, LocalDateTime before);
+
+    @Query(value = "SELECT hash FROM blobs WHERE hash IN (:hashes)", nativeQuery = true)
+    List<String> findExisting(Collection<String> hashes);
+}
@@ -1,13 +1,47 @@
 package com.orbyq.backend.repository;
 
-import com.orbyq.backend.model.Canvas;
 import com.orbyq.backend.model.CanvasItem;
-import com.orbyq.backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface CanvasItemRepository extends JpaRepository<CanvasItem, UUID> {
-    List<CanvasItem> findByUser(User user);
-    List<CanvasItem> findByCanvas(Canvas canvas);
-}
\ No newline at end of file
+    List<CanvasItem> findByUserId(Long userId);
+    List<CanvasItem> findByCanvasId(UUID canvasId);
+
+    // Canvas load reads content for every item; selecting it here avoids one lazy load per item
+    @Query("SELECT new com.orbyq.backend.repository.CanvasItemRepository$ItemView(i.id, i.type, i.content, i.x, i.y, " +
+            "i.width, i.height, i.styleJson, i.version) " +
+            "FROM CanvasItem i WHERE i.canvas.id = :canvasId")
+    List<ItemView> findViewsByCanvasId(UUID canvasId);
+
+    interface StoredContent {
+        String getType();
+        String getContent();
+    }
+
+    // Items are only ever created by the canvas owner, so matching the item's owner and canvas covers both checks.
+    // Hands back the type and content the item had before, so a replaced image's blob reference can be released.
+    @Query(value = "UPDATE canvas_items i SET type = :type, content = :content, x = :x, y = :y, width = :width, " +
+            "height = :height, style_json = :styleJson, version = i.version + 1 " +
+            "FROM (SELECT id, type, content FROM canvas_items WHERE id = :id FOR UPDATE) old " +
+            "WHERE i.id = old.id AND i.canvas_id = :canvasId AND i.user_id = :userId " +
+            "RETURNING old.type AS type, old.content AS content",
+            nativeQuery = true)
+    Optional<StoredContent> updateForOwner(UUID id, UUID canvasId, Long userId, String type, String content,
+                                           double x, double y, double width, double height, String styleJson);
+
+    @Query(value = "DELETE FROM canvas_items WHERE id = :id AND canvas_id = :canvasId AND user_id = :userId " +
+            "RETURNING type, content",
+            nativeQuery = true)
+    Optional<StoredContent> deleteForOwner(UUID id, UUID canvasId, Long userId);
+
+    @Query("SELECT i.content FROM CanvasItem i WHERE i.canvas.id = :canvasId AND i.type = 'image'")
+    List<String> findImageContentsByCanvasId(UUID canvasId);
+
+    record ItemView(UUID id, String type, String content, double x, double y, double width, double height, String styleJson,
+                    long version) {
+    }
+}
@@ -1,12 +1,25 @@
 package com.orbyq.backend.repository;
 
 import com.orbyq.backend.model.Canvas;
-import com.orbyq.backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface CanvasRepository extends JpaRepository<Canvas, UUID> {
-    List<Canvas> findByUser(User user);
+    @Query("SELECT c FROM Canvas c WHERE c.user.id = :userId")
+    List<Canvas> findByUserId(Long userId);
+
+    @Query("SELECT new com.orbyq.backend.repository.CanvasRepository$CanvasSummary(c.id, c.title, c.user.id, c.version) " +
+            "FROM Canvas c WHERE c.user.id = :userId")
+    List<CanvasSummary> findSummariesByUserId(Long userId);
+
+    @Query("SELECT new com.orbyq.backend.repository.CanvasRepository$CanvasSummary(c.id, c.title, c.user.id, c.version) " +
+            "FROM Canvas c WHERE c.id = :id")
+    Optional<CanvasSummary> findSummaryById(UUID id);
+
+    record CanvasSummary(UUID id, String title, Long ownerId, long version) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.orbyq.backend.repository;
+
+import com.orbyq.backend.model.DailyCompletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyCompletionRepository extends JpaRepository<DailyCompletion, DailyCompletion.Key> {
+    List<DailyCompletion> findByUserIdAndDayBetween(Long userId, LocalDate start, LocalDate end);
+
+    @Modifying
+    @Query(value = "INSERT INTO dashboard_daily_completions (user_id, day, completed) VALUES (:userId, :day, :delta) " +
+            "ON CONFLICT (user_id, day) DO UPDATE SET completed = dashboard_daily_completions.completed + EXCLUDED.completed",
+            nativeQuery = true)
+    int addCompleted(Long userId, LocalDate day, long delta);
+
+    @Modifying
+    @Query(value = "DELETE FROM dashboard_daily_completions WHERE user_id = :userId", nativeQuery = true)
+    int deleteByUser(Long userId);
+
+    @Modifying
+    @Query(value = "INSERT INTO dashboard_daily_completions (user_id, day, completed) " +
+            "SELECT user_id, completed_at, COUNT(*) FROM tasks " +
+            "WHERE user_id = :userId AND completed AND completed_at IS NOT NULL " +
+            "GROUP BY user_id, completed_at",
+            nativeQuery = true)
+    int rebuildForUser(Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM dashboard_daily_completions d WHERE NOT EXISTS (SELECT 1 FROM users u WHERE u.id = d.user_id)", nativeQuery = true)
+    int deleteOrphans();
+}
@@ -0,0 +1,65 @@
+package com.orbyq.backend.repository;
+
+import com.orbyq.backend.model.DashboardStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DashboardStatsRepository extends JpaRepository<DashboardStats, Long> {
+
+    // Deltas only touch an existing row; 0 means the user has no read model yet and needs a rebuild
+    @Modifying
+    @Query(value = "UPDATE dashboard_stats SET task_count = task_count + :tasks, completed_count = completed_count + :completed, " +
+            "project_task_count = project_task_count + :projectTasks, project_completed_count = project_completed_count + :projectCompleted, " +
+            "project_count = project_count + :projects " +
+            "WHERE user_id = :userId",
+            nativeQuery = true)
+    int addCounts(Long userId, long tasks, long completed, long projectTasks, long projectCompleted, long projects);
+
+    // Creates the row if needed and row-locks it either way, so a rebuild can't interleave with a concurrent delta
+    @Modifying
+    @Query(value = "INSERT INTO dashboard_stats (user_id, task_count, completed_count, project_task_count, project_completed_count, project_count, idea_count) " +
+            "VALUES (:userId, 0, 0, 0, 0, 0, 0) " +
+            "ON CONFLICT (user_id) DO UPDATE SET user_id = EXCLUDED.user_id",
+            nativeQuery = true)
+    int insertOrLock(Long userId);
+
+    @Modifying
+    @Query(value = "UPDATE dashboard_stats s SET task_count = t.total, completed_count = t.done, " +
+            "project_task_count = t.project_total, project_completed_count = t.project_done, " +
+            "project_count = (SELECT COUNT(*) FROM projects WHERE user_id = :userId), " +
+            "idea_count = (SELECT COUNT(*) FROM ideas WHERE user_id = :userId) " +
+            "FROM (SELECT COUNT(*) AS total, COUNT(*) FILTER (WHERE completed) AS done, " +
+            "COUNT(project_id) AS project_total, COUNT(project_id) FILTER (WHERE completed) AS project_done " +
+            "FROM tasks WHERE user_id = :userId) t " +
+            "WHERE s.user_id = :userId",
+            nativeQuery = true)
+    int recomputeForUser(Long userId);
+
+    // Users whose stored counters disagree with the source tables, or whose recent daily counts do
+    @Query(value = "SELECT s.user_id FROM dashboard_stats s " +
+            "LEFT JOIN (SELECT user_id, COUNT(*) AS total, COUNT(*) FILTER (WHERE completed) AS done, " +
+            "COUNT(project_id) AS project_total, COUNT(project_id) FILTER (WHERE completed) AS project_done " +
+            "FROM tasks GROUP BY user_id) t ON t.user_id = s.user_id " +
+            "LEFT JOIN (SELECT user_id, COUNT(*) AS n FROM projects GROUP BY user_id) p ON p.user_id = s.user_id " +
+            "LEFT JOIN (SELECT user_id, COUNT(*) AS n FROM ideas GROUP BY user_id) i ON i.user_id = s.user_id " +
+            "WHERE s.task_count <> COALESCE(t.total, 0) OR s.completed_count <> COALESCE(t.done, 0) " +
+            "OR s.project_task_count <> COALESCE(t.project_total, 0) OR s.project_completed_count <> COALESCE(t.project_done, 0) " +
+            "OR s.project_count <> COALESCE(p.n, 0) OR s.idea_count <> COALESCE(i.n, 0) " +
+            "UNION " +
+            "SELECT COALESCE(a.user_id, d.user_id) FROM " +
+            "(SELECT user_id, completed_at AS day, COUNT(*) AS n FROM tasks " +
+            "WHERE completed AND completed_at >= :since AND user_id IN (SELECT user_id FROM dashboard_stats) " +
+            "GROUP BY user_id, completed_at) a " +
+            "FULL JOIN (SELECT user_id, day, completed AS n FROM dashboard_daily_completions WHERE day >= :since) d " +
+            "ON d.user_id = a.user_id AND d.day = a.day " +
+            "WHERE COALESCE(a.n, 0) <> COALESCE(d.n, 0)",
+            nativeQuery = true)
+    List<Long> findDriftedUserIds(LocalDate since);
+
+    @Modifying
+    @Query(value = "DELETE FROM dashboard_stats s WHERE NOT EXISTS (SELECT 1 FROM users u WHERE u.id = s.user_id)", nativeQuery = true)
+    int deleteOrphans();
+}
@@ -1,11 +1,49 @@
 package com.orbyq.backend.repository;
 
 import com.orbyq.backend.model.Document;
-import com.orbyq.backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface DocumentRepository extends JpaRepository<Document, UUID> {
-    List<Document> findByUser(User user);
-}
\ No newline at end of file
+    @Query("SELECT d FROM Document d WHERE d.user.id = :userId")
+    List<Document> findByUserId(Long userId);
+
+    // The document list shows bodies, so they are selected directly rather than lazy-loaded one by one
+    @Query("SELECT new com.orbyq.backend.repository.DocumentRepository$DocumentView(d.id, d.title, d.content, d.createdAt, d.updatedAt, d.version) " +
+            "FROM Document d WHERE d.user.id = :userId")
+    List<DocumentView> findViewsByUserId(Long userId);
+
+    @Modifying
+    @Query("UPDATE Document d SET d.title = :title, d.content = :content, d.contentHash = :contentHash, " +
+            "d.updatedAt = :updatedAt, d.version = d.version + 1 WHERE d.id = :id AND d.user.id = :userId")
+    int updateForOwner(UUID id, Long userId, String title, String content, String contentHash, LocalDate updatedAt);
+
+    // Enough to answer a conditional request without reading the body
+    @Query("SELECT d.contentHash FROM Document d WHERE d.id = :id AND d.user.id = :userId")
+    Optional<String> findContentHashForOwner(UUID id, Long userId);
+
+    @Query("SELECT new com.orbyq.backend.repository.DocumentRepository$ContentView(d.contentHash, d.content) " +
+            "FROM Document d WHERE d.id = :id AND d.user.id = :userId")
+    Optional<ContentView> findContentForOwner(UUID id, Long userId);
+
+    // The id comes back with the title, so an untitled document still reads as deleted
+    @Query(value = "DELETE FROM documents WHERE id = :id AND user_id = :userId RETURNING id AS \"id\", title AS \"title\"",
+            nativeQuery = true)
+    Optional<WrittenRow> deleteForOwner(UUID id, Long userId);
+
+    interface WrittenRow {
+        UUID getId();
+        String getTitle();
+    }
+
+    record ContentView(String contentHash, String content) {
+    }
+
+    record DocumentView(UUID id, String title, String content, LocalDate createdAt, LocalDate updatedAt, long version) {
+    }
+}
@@ -1,11 +1,41 @@
 package com.orbyq.backend.repository;
 
 import com.orbyq.backend.model.MoodBoardItem;
-import com.orbyq.backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface MoodBoardItemRepository extends JpaRepository<MoodBoardItem, UUID> {
-    List<MoodBoardItem> findByUser(User user);
-}
\ No newline at end of file
+    @Query("SELECT m FROM MoodBoardItem m WHERE m.user.id = :userId")
+    List<MoodBoardItem> findByUserId(Long userId);
+
+    @Query("SELECT new com.orbyq.backend.repository.MoodBoardItemRepository$ItemView(m.id, m.imageUrl, m.thumbnail, " +
+            "m.preview, m.width, m.height, m.createdAt, m.version) " +
+            "FROM MoodBoardItem m WHERE m.user.id = :userId")
+    List<ItemView> findViewsByUserId(Long userId);
+
+    // Only fills in derivatives the item doesn't have yet, and only while it still holds the same original
+    @Modifying
+    @Query("UPDATE MoodBoardItem m SET m.thumbnail = :thumbnail, m.preview = :preview, m.width = :width, m.height = :height " +
+            "WHERE m.id = :id AND m.imageUrl = :imageUrl AND m.thumbnail IS NULL")
+    int saveDerivatives(UUID id, String imageUrl, String thumbnail, String preview, Integer width, Integer height);
+
+    interface StoredImages {
+        String getImageUrl();
+        String getThumbnail();
+        String getPreview();
+    }
+
+    @Query(value = "DELETE FROM mood_board_items WHERE id = :id AND user_id = :userId " +
+            "RETURNING image_url AS imageUrl, thumbnail, preview",
+            nativeQuery = true)
+    Optional<StoredImages> deleteForOwner(UUID id, Long userId);
+
+    record ItemView(UUID id, String imageUrl, String thumbnail, String preview, Integer width, Integer height,
+                    LocalDate createdAt, long version) {
+    }
+}
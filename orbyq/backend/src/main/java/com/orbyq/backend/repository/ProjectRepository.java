@@ -1,12 +1,16 @@
 package com.orbyq.backend.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.orbyq.backend.model.Project;
-import com.orbyq.backend.model.User;
 import java.util.List;
 import java.util.UUID;
 
 public interface ProjectRepository extends JpaRepository<Project, UUID> {
-    List<Project> findByUser(User user);
+    List<Project> findByUserId(Long userId);
+    @Query("SELECT p FROM Project p WHERE p.user.id = :userId")
+    Page<Project> findPageByUserId(Long userId, Pageable pageable);
 }
\ No newline at end of file
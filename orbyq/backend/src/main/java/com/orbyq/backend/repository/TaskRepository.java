@@ -2,16 +2,124 @@ package com.orbyq.backend.repository;
 
 import com.orbyq.backend.model.Task;
 import com.orbyq.backend.model.User;
-import com.orbyq.backend.model.Project;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface TaskRepository extends JpaRepository<Task, UUID> {
-    List<Task> findByUser(User user);
+    List<Task> findByUserId(Long userId);
+
+    // Board: the card columns only, no owner or project rows
+    @Query("SELECT new com.orbyq.backend.repository.TaskRepository$BoardTask(t.id, t.title, t.description, t.priority, " +
+            "t.dueDate, t.status, t.comments, t.attachments, t.version) " +
+            "FROM Task t WHERE t.user.id = :userId")
+    List<BoardTask> findBoardTasks(Long userId);
     List<Task> findByUserAndCompleted(User user, boolean completed);
-    List<Task> findByUserAndDueDateBetween(User user, LocalDate start, LocalDate end);
-    List<Task> findByProject(Project project);
+    List<Task> findByUserIdAndDueDateBetween(Long userId, LocalDate start, LocalDate end);
+    List<Task> findByProjectId(UUID projectId);
     List<Task> findByUserAndStatus(User user, Task.Status status);
-}
\ No newline at end of file
+
+    @Query("SELECT t.title AS title, t.dueDate AS dueDate FROM Task t " +
+            "WHERE t.user.id = :userId AND t.dueDate BETWEEN :start AND :end ORDER BY t.dueDate")
+    List<UpcomingTask> findUpcoming(Long userId, LocalDate start, LocalDate end, Limit limit);
+
+    // Timeline: the listed projects' tasks whose [createdAt, dueDate] span overlaps the window, filters applied
+    // in SQL (null means "any"). Served by idx_tasks_user_due_created.
+    @Query("SELECT t.id AS id, t.project.id AS projectId, t.title AS title, t.createdAt AS createdAt, " +
+            "t.dueDate AS dueDate, t.completed AS completed FROM Task t " +
+            "WHERE t.user.id = :userId AND t.project.id IN :projectIds " +
+            "AND (CAST(:from AS LocalDate) IS NULL OR t.dueDate IS NULL OR t.dueDate >= :from) " +
+            "AND (CAST(:to AS LocalDate) IS NULL OR t.createdAt IS NULL OR t.createdAt <= :to) " +
+            "AND (:status IS NULL OR t.status = :status) AND (:priority IS NULL OR t.priority = :priority) " +
+            "ORDER BY t.createdAt, t.id")
+    List<TimelineTask> findTimelineTasks(Long userId, Collection<UUID> projectIds, LocalDate from, LocalDate to,
+                                         Task.Status status, Task.Priority priority);
+
+    @Query("SELECT t.project.id AS projectId, COUNT(t) AS total, " +
+            "SUM(CASE WHEN t.completed = true THEN 1 ELSE 0 END) AS completed " +
+            "FROM Task t WHERE t.user.id = :userId AND t.project.id IN :projectIds GROUP BY t.project.id")
+    List<ProjectProgress> summarizeProjectProgress(Long userId, Collection<UUID> projectIds);
+
+    @Query("SELECT t.title AS title, p.name AS projectName, t.dueDate AS dueDate FROM Task t JOIN t.project p " +
+            "WHERE t.user.id = :userId AND t.dueDate BETWEEN :start AND :end " +
+            "AND (:status IS NULL OR t.status = :status) AND (:priority IS NULL OR t.priority = :priority) " +
+            "ORDER BY t.dueDate")
+    List<Milestone> findMilestones(Long userId, LocalDate start, LocalDate end, Task.Status status, Task.Priority priority, Limit limit);
+
+    // Owner-scoped writes. Each is one statement that also returns the task's completion state before and
+    // after, which the dashboard counters need; no row back means the task is missing or someone else's.
+    // The locking subquery hands the pre-update values to RETURNING.
+    @Query(value = "UPDATE tasks t SET status = :status, completed = :completed, " +
+            "completed_at = CASE WHEN :completed THEN COALESCE(prev.completed_at, :today) ELSE NULL END, " +
+            "version = t.version + 1 " +
+            "FROM (SELECT id, completed, completed_at FROM tasks WHERE id = :id AND user_id = :userId FOR UPDATE) prev " +
+            "WHERE t.id = prev.id " +
+            "RETURNING " + TRANSITION_COLUMNS,
+            nativeQuery = true)
+    Optional<CompletionTransition> updateStatusForOwner(UUID id, Long userId, String status, boolean completed, LocalDate today);
+
+    @Query(value = "UPDATE tasks t SET title = :title, description = :description, priority = :priority, " +
+            "due_date = :dueDate, status = :status, completed = :completed, " +
+            "completed_at = CASE WHEN :completed THEN COALESCE(prev.completed_at, :today) ELSE NULL END, " +
+            "version = t.version + 1 " +
+            "FROM (SELECT id, completed, completed_at FROM tasks WHERE id = :id AND user_id = :userId FOR UPDATE) prev " +
+            "WHERE t.id = prev.id " +
+            "RETURNING " + TRANSITION_COLUMNS,
+            nativeQuery = true)
+    Optional<CompletionTransition> updateForOwner(UUID id, Long userId, String title, String description, String priority,
+                                                  LocalDate dueDate, String status, boolean completed, LocalDate today);
+
+    @Query(value = "DELETE FROM tasks WHERE id = :id AND user_id = :userId " +
+            "RETURNING title AS \"title\", completed AS \"wasCompleted\", completed_at AS \"previousCompletedAt\", " +
+            "false AS \"completed\", CAST(NULL AS date) AS \"completedAt\", project_id IS NOT NULL AS \"inProject\"",
+            nativeQuery = true)
+    Optional<CompletionTransition> deleteForOwner(UUID id, Long userId);
+
+    String TRANSITION_COLUMNS = "t.title AS \"title\", prev.completed AS \"wasCompleted\", prev.completed_at AS \"previousCompletedAt\", " +
+            "t.completed AS \"completed\", t.completed_at AS \"completedAt\", t.project_id IS NOT NULL AS \"inProject\"";
+
+    interface CompletionTransition {
+        String getTitle();
+        boolean getWasCompleted();
+        LocalDate getPreviousCompletedAt();
+        boolean getCompleted();
+        LocalDate getCompletedAt();
+        boolean getInProject();
+    }
+
+    interface TimelineTask {
+        UUID getId();
+        UUID getProjectId();
+        String getTitle();
+        LocalDate getCreatedAt();
+        LocalDate getDueDate();
+        boolean getCompleted();
+    }
+
+    interface ProjectProgress {
+        UUID getProjectId();
+        long getTotal();
+        long getCompleted();
+    }
+
+    interface Milestone {
+        String getTitle();
+        String getProjectName();
+        LocalDate getDueDate();
+    }
+
+    interface UpcomingTask {
+        String getTitle();
+        LocalDate getDueDate();
+    }
+
+    // Records rather than interface projections for list reads: no proxy per row
+    record BoardTask(UUID id, String title, String description, Task.Priority priority, LocalDate dueDate,
+                     Task.Status status, int comments, int attachments, long version) {
+    }
+}
@@ -6,10 +6,15 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
-public interface TodoRepository extends JpaRepository<Todo, UUID>, JpaSpecificationExecutor<Todo> {
+public interface TodoRepository extends JpaRepository<Todo, UUID>, JpaSpecificationExecutor<Todo>, TodoRepositoryCustom {
 
     Page<Todo> findByUser(User user, Pageable pageable);
 
@@ -27,4 +32,50 @@ public interface TodoRepository extends JpaRepository<Todo, UUID>, JpaSpecificat
 
     Page<Todo> findByUserAndCompletedAndPriorityAndCategory(
             User user, boolean completed, Todo.Priority priority, Todo.Category category, Pageable pageable);
-}
\ No newline at end of file
+
+    interface FacetCount {
+        String getFacet();
+        String getBucket();
+        long getCount();
+    }
+
+    // A null filter parameter matches every row
+    String COMPLETED_MATCHES = "(CAST(:completed AS boolean) IS NULL OR completed = :completed)";
+    String PRIORITY_MATCHES = "(CAST(:priority AS varchar) IS NULL OR priority = :priority)";
+    String CATEGORY_MATCHES = "(CAST(:category AS varchar) IS NULL OR category = :category)";
+
+    // Every facet in one pass over the user's todos. Each grouping set counts under the other active filters but
+    // not its own, so the badges of one filter show what picking another value would return; "total" applies all.
+    @Query(value = "SELECT CASE WHEN GROUPING(priority) = 0 THEN 'priority' WHEN GROUPING(category) = 0 THEN 'category' " +
+            "WHEN GROUPING(completed) = 0 THEN 'completed' ELSE 'total' END AS facet, " +
+            "COALESCE(priority, category, CAST(completed AS varchar)) AS bucket, " +
+            "CASE WHEN GROUPING(priority) = 0 THEN COUNT(*) FILTER (WHERE " + COMPLETED_MATCHES + " AND " + CATEGORY_MATCHES + ") " +
+            "WHEN GROUPING(category) = 0 THEN COUNT(*) FILTER (WHERE " + COMPLETED_MATCHES + " AND " + PRIORITY_MATCHES + ") " +
+            "WHEN GROUPING(completed) = 0 THEN COUNT(*) FILTER (WHERE " + PRIORITY_MATCHES + " AND " + CATEGORY_MATCHES + ") " +
+            "ELSE COUNT(*) FILTER (WHERE " + COMPLETED_MATCHES + " AND " + PRIORITY_MATCHES + " AND " + CATEGORY_MATCHES + ") END AS count " +
+            "FROM todo WHERE user_id = :userId " +
+            "GROUP BY GROUPING SETS ((priority), (category), (completed), ())",
+            nativeQuery = true)
+    List<FacetCount> countFacets(Long userId, Boolean completed, String priority, String category);
+
+    // Single statements that hand back the title for the activity feed; empty means missing or not the owner's.
+    // The id comes back too: a bare nullable title would read as empty for an untitled row that was written.
+    @Query(value = "UPDATE todo SET completed = :completed, version = version + 1 WHERE id = :id AND user_id = :userId " +
+            "RETURNING id AS \"id\", title AS \"title\"",
+            nativeQuery = true)
+    Optional<WrittenRow> updateCompletionForOwner(UUID id, Long userId, boolean completed);
+
+    @Modifying
+    @Query("UPDATE Todo t SET t.title = :title, t.priority = :priority, t.category = :category, t.dueDate = :dueDate, " +
+            "t.version = t.version + 1 WHERE t.id = :id AND t.user.id = :userId")
+    int updateForOwner(UUID id, Long userId, String title, Todo.Priority priority, Todo.Category category, LocalDate dueDate);
+
+    @Query(value = "DELETE FROM todo WHERE id = :id AND user_id = :userId RETURNING id AS \"id\", title AS \"title\"",
+            nativeQuery = true)
+    Optional<WrittenRow> deleteForOwner(UUID id, Long userId);
+
+    interface WrittenRow {
+        UUID getId();
+        String getTitle();
+    }
+}
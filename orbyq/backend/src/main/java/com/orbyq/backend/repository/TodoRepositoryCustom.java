@@ -0,0 +1,28 @@
+package com.orbyq.backend.repository;
+
+import com.orbyq.backend.model.Todo;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface TodoRepositoryCustom {
+
+    // The todo list columns only, as records rather than managed entities
+    record TodoRow(UUID id, String title, boolean completed, Todo.Priority priority, LocalDate dueDate, Todo.Category category,
+                   LocalDateTime createdAt) {
+    }
+
+    Page<TodoRow> findRows(Specification<Todo> spec, Pageable pageable);
+
+    // Keyset reads: no offset and no count, the spec carries the seek predicate
+    List<TodoRow> findRows(Specification<Todo> spec, Sort sort, int limit);
+
+    // Stops counting at the limit, so the cost stays bounded however many rows match
+    long countRows(Specification<Todo> spec, int limit);
+}
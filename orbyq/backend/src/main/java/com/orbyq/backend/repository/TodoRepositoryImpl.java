@@ -0,0 +1,73 @@
+package com.orbyq.backend.repository;
+
+import com.orbyq.backend.model.Todo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+// Same Specification filters as findAll(spec, pageable), but selects a constructor projection
+class TodoRepositoryImpl implements TodoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<TodoRow> findRows(Specification<Todo> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        TypedQuery<TodoRow> typed = rowsQuery(spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize());
+        }
+        List<TodoRow> rows = typed.getResultList();
+
+        // The count only runs when the page alone can't tell the total
+        return PageableExecutionUtils.getPage(rows, pageable, () -> {
+            CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+            Root<Todo> countRoot = countQuery.from(Todo.class);
+            countQuery.select(cb.count(countRoot));
+            countQuery.where(spec.toPredicate(countRoot, countQuery, cb));
+            return entityManager.createQuery(countQuery).getSingleResult();
+        });
+    }
+
+    @Override
+    public List<TodoRow> findRows(Specification<Todo> spec, Sort sort, int limit) {
+        return rowsQuery(spec, sort).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public long countRows(Specification<Todo> spec, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UUID> query = cb.createQuery(UUID.class);
+        Root<Todo> root = query.from(Todo.class);
+        query.select(root.get("id"));
+        query.where(spec.toPredicate(root, query, cb));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList().size();
+    }
+
+    private TypedQuery<TodoRow> rowsQuery(Specification<Todo> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TodoRow> query = cb.createQuery(TodoRow.class);
+        Root<Todo> root = query.from(Todo.class);
+        query.select(cb.construct(TodoRow.class,
+                root.get("id"), root.get("title"), root.get("completed"),
+                root.get("priority"), root.get("dueDate"), root.get("category"), root.get("createdAt")));
+        query.where(spec.toPredicate(root, query, cb));
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return entityManager.createQuery(query);
+    }
+}
@@ -0,0 +1,28 @@
+package com.orbyq.backend.repository;
+
+import com.orbyq.backend.model.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.expiresAt = :expiresAt WHERE s.id = :id")
+    int extend(UUID id, LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM UploadSession s WHERE s.id = :id AND s.user.id = :userId")
+    int deleteForOwner(UUID id, Long userId);
+
+    @Query(value = "SELECT id FROM upload_sessions WHERE expires_at < :now ORDER BY expires_at LIMIT :limit", nativeQuery = true)
+    List<UUID> findExpired(LocalDateTime now, int limit);
+
+    @Modifying
+    @Query("DELETE FROM UploadSession s WHERE s.id = :id AND s.expiresAt < :now")
+    int deleteExpired(UUID id, LocalDateTime now);
+}
@@ -1,10 +1,20 @@
 package com.orbyq.backend.repository;
 
 import com.orbyq.backend.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+    @EntityGraph("User.roles")
+    Optional<User> findWithRolesByEmail(String email);
+    @EntityGraph("User.roles")
+    Optional<User> findWithRolesById(Long id);
     boolean existsByEmail(String email);
+    @Query("SELECT u.securityVersion FROM User u WHERE u.id = :id")
+    Optional<Long> findSecurityVersionById(Long id);
+    @Query("SELECT u.name FROM User u WHERE u.id = :id")
+    Optional<String> findNameById(Long id);
 }
\ No newline at end of file
@@ -0,0 +1,152 @@
+package com.orbyq.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+// Maintains the monthly partitions of activity_logs (set up by ActivityLogPartitionMigration): upcoming months
+// are created ahead of time and months past the retention window are dropped as whole partitions rather than
+// deleted row by row. Rows that reached the default partition first are moved into their month's partition when it
+// is created, and deleted from the default partition once they fall out of the retention window.
+@Component
+@DependsOn("flywayInitializer")
+public class ActivityLogPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityLogPartitionManager.class);
+
+    private static final String PARTITION_PREFIX = "activity_logs_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${activity.retention-months:12}")
+    private int retentionMonths;
+
+    @Value("${activity.partitions-ahead:2}")
+    private int partitionsAhead;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        maintain();
+    }
+
+    @Scheduled(initialDelayString = "${activity.partition-maintenance-interval:86400000}",
+            fixedDelayString = "${activity.partition-maintenance-interval:86400000}")
+    public void maintain() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= partitionsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    lock();
+                    createPartitionTakingDefaultRows(month);
+                });
+            } catch (DataAccessException e) {
+                logger.warn("Could not create activity_logs partition for {}", month, e);
+            }
+        }
+        if (retentionMonths > 0) {
+            dropPartitionsBefore(current.minusMonths(retentionMonths));
+        }
+    }
+
+    static void createPartition(JdbcTemplate jdbcTemplate, YearMonth month) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF activity_logs " +
+                "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+    }
+
+    // A plain CREATE ... PARTITION OF fails while the default partition holds rows for the new range, so those rows are
+    // moved into a standalone table that is then attached
+    void createPartitionTakingDefaultRows(YearMonth month) {
+        String partition = partitionName(month);
+        if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition)) {
+            return;
+        }
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        if (!jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM activity_logs_default WHERE created_at >= ? AND created_at < ?)",
+                Boolean.class, from, to)) {
+            createPartition(jdbcTemplate, month);
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE activity_logs INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM activity_logs_default WHERE created_at >= ? AND created_at < ? " +
+                "RETURNING id, user_id, action, details, created_at) " +
+                "INSERT INTO " + partition + " (id, user_id, action, details, created_at) SELECT * FROM moved", from, to);
+        jdbcTemplate.execute("ALTER TABLE activity_logs ATTACH PARTITION " + partition +
+                " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        logger.info("Created activity_logs partition {} with {} row(s) moved from the default partition", partition, moved);
+    }
+
+    void dropPartitionsBefore(YearMonth cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT CAST(c.relname AS text) FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = to_regclass('activity_logs')", String.class);
+        for (String partition : partitions) {
+            YearMonth month = monthOf(partition);
+            if (month == null || !month.isBefore(cutoff)) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    lock();
+                    jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+                });
+                logger.info("Dropped activity_logs partition {} (older than {} months)", partition, retentionMonths);
+            } catch (DataAccessException e) {
+                logger.warn("Could not drop activity_logs partition {}", partition, e);
+            }
+        }
+        // Months that never had a partition keep their rows in the default one
+        try {
+            int deleted = jdbcTemplate.update("DELETE FROM activity_logs_default WHERE created_at < ?", cutoff.atDay(1).atStartOfDay());
+            if (deleted > 0) {
+                logger.info("Deleted {} activity_logs row(s) older than {} months from the default partition", deleted, retentionMonths);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Could not delete expired rows from the default activity_logs partition", e);
+        }
+    }
+
+    // Serializes partition DDL across application instances
+    private void lock() {
+        jdbcTemplate.queryForObject("SELECT CAST(pg_advisory_xact_lock(hashtext('activity_logs_partitions')) AS text)", String.class);
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    static YearMonth monthOf(String partitionName) {
+        if (!partitionName.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partitionName.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
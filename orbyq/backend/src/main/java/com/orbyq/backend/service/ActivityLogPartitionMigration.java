@@ -0,0 +1,98 @@
+package com.orbyq.backend.service;
+
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+// V2: converts activity_logs into a table range-partitioned by month on created_at, moving any existing rows.
+// A no-op on databases where an earlier release already converted it at startup.
+@Component
+public class ActivityLogPartitionMigration implements JavaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityLogPartitionMigration.class);
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("2");
+    }
+
+    @Override
+    public String getDescription() {
+        return "Partition activity logs";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+
+        List<String> kind = jdbcTemplate.queryForList(
+                "SELECT CAST(relkind AS text) FROM pg_class WHERE oid = to_regclass('activity_logs')", String.class);
+        if (!kind.isEmpty() && "p".equals(kind.get(0))) {
+            return;
+        }
+
+        boolean legacy = !kind.isEmpty();
+        String foreignKey = "fk5bm1lt4f4eevt8lv2517soakd";
+        if (legacy) {
+            List<String> names = jdbcTemplate.queryForList("SELECT CAST(conname AS text) FROM pg_constraint " +
+                    "WHERE conrelid = to_regclass('activity_logs') AND contype = 'f'", String.class);
+            if (!names.isEmpty()) {
+                foreignKey = names.get(0);
+            }
+            jdbcTemplate.execute("LOCK TABLE activity_logs IN ACCESS EXCLUSIVE MODE");
+            jdbcTemplate.execute("ALTER TABLE activity_logs RENAME TO activity_logs_unpartitioned");
+            jdbcTemplate.execute("ALTER INDEX IF EXISTS activity_logs_pkey RENAME TO activity_logs_unpartitioned_pkey");
+        }
+
+        // The partition key has to be part of the primary key
+        jdbcTemplate.execute("CREATE TABLE activity_logs (" +
+                "id uuid NOT NULL, " +
+                "user_id bigint NOT NULL, " +
+                "action varchar(255), " +
+                "details varchar(255), " +
+                "created_at timestamp(6) NOT NULL, " +
+                "PRIMARY KEY (created_at, id), " +
+                "CONSTRAINT " + foreignKey + " FOREIGN KEY (user_id) REFERENCES users (id)" +
+                ") PARTITION BY RANGE (created_at)");
+        // Catches writes outside every monthly partition so they are never rejected
+        jdbcTemplate.execute("CREATE TABLE activity_logs_default PARTITION OF activity_logs DEFAULT");
+
+        YearMonth current = YearMonth.now();
+        if (legacy) {
+            LocalDate oldest = jdbcTemplate.queryForObject(
+                    "SELECT CAST(MIN(created_at) AS date) FROM activity_logs_unpartitioned", LocalDate.class);
+            if (oldest != null) {
+                for (YearMonth month = YearMonth.from(oldest); month.isBefore(current); month = month.plusMonths(1)) {
+                    ActivityLogPartitionManager.createPartition(jdbcTemplate, month);
+                }
+            }
+        }
+        ActivityLogPartitionManager.createPartition(jdbcTemplate, current);
+
+        if (legacy) {
+            int copied = jdbcTemplate.update("INSERT INTO activity_logs (id, user_id, action, details, created_at) " +
+                    "SELECT id, user_id, action, details, COALESCE(created_at, LOCALTIMESTAMP) FROM activity_logs_unpartitioned");
+            jdbcTemplate.execute("DROP TABLE activity_logs_unpartitioned");
+            logger.info("Converted activity_logs to monthly partitions ({} row(s) moved)", copied);
+        }
+    }
+}
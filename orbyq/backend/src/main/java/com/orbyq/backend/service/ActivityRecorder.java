@@ -0,0 +1,170 @@
+package com.orbyq.backend.service;
+
+import com.orbyq.backend.model.UuidV7Generator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Records user activity for the dashboard feeds without an INSERT on the request path. Events go into a
+// bounded lock-free ring buffer (after commit, when called inside a transaction) and a single background
+// writer drains them into activity_logs with batched inserts.
+@Component
+public class ActivityRecorder {
+
+    public enum OverflowPolicy { DROP, BLOCK }
+
+    record Activity(UUID id, Long userId, String action, String details, LocalDateTime createdAt) {
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityRecorder.class);
+
+    // activity_logs.details is a default varchar(255)
+    private static final int MAX_DETAILS = 255;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO activity_logs (id, user_id, action, details, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ActivityRingBuffer<Activity> buffer;
+    private final OverflowPolicy overflowPolicy;
+    private final long flushIntervalNanos;
+    private final long blockTimeoutNanos;
+    private final int batchSize;
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile Thread writer;
+
+    public ActivityRecorder(JdbcTemplate jdbcTemplate,
+                            @Value("${activity.buffer-capacity:8192}") int capacity,
+                            @Value("${activity.overflow:drop}") String overflow,
+                            @Value("${activity.flush-interval:500}") long flushIntervalMillis,
+                            @Value("${activity.block-timeout:1000}") long blockTimeoutMillis,
+                            @Value("${activity.batch-size:256}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new ActivityRingBuffer<>(capacity);
+        this.overflowPolicy = OverflowPolicy.valueOf(overflow.toUpperCase());
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        writer = Thread.ofPlatform().daemon().name("activity-writer").start(this::drainLoop);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        Thread current = writer;
+        if (current != null) {
+            LockSupport.unpark(current);
+            current.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 5_000);
+        }
+    }
+
+    // Safe to call from inside a service transaction: the event is only published if that transaction commits
+    public void record(Long userId, String action, String details) {
+        if (details != null && details.length() > MAX_DETAILS) {
+            details = details.substring(0, MAX_DETAILS - 3) + "...";
+        }
+        Activity activity = new Activity(UuidV7Generator.next(), userId, action, details, LocalDateTime.now());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(activity);
+                }
+            });
+        } else {
+            enqueue(activity);
+        }
+    }
+
+    private void enqueue(Activity activity) {
+        if (!buffer.offer(activity) && !(overflowPolicy == OverflowPolicy.BLOCK && offerBlocking(activity))) {
+            dropped.incrementAndGet();
+            return;
+        }
+        if (buffer.size() >= batchSize) {
+            Thread current = writer;
+            if (current != null) {
+                LockSupport.unpark(current);
+            }
+        }
+    }
+
+    private boolean offerBlocking(Activity activity) {
+        long deadline = System.nanoTime() + blockTimeoutNanos;
+        while (running && System.nanoTime() < deadline) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            if (buffer.offer(activity)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void drainLoop() {
+        List<Activity> batch = new ArrayList<>(batchSize);
+        while (running || buffer.size() > 0) {
+            buffer.drainTo(batch, batchSize);
+            if (!batch.isEmpty()) {
+                try {
+                    write(batch);
+                } catch (RuntimeException e) {
+                    logger.error("Failed to write {} activity event(s)", batch.size(), e);
+                }
+                batch.clear();
+            }
+            long lost = dropped.getAndSet(0);
+            if (lost > 0) {
+                logger.warn("Activity buffer full, dropped {} event(s)", lost);
+            }
+            if (running && buffer.size() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+        }
+    }
+
+    private void write(List<Activity> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, activity) -> {
+                ps.setObject(1, activity.id());
+                ps.setLong(2, activity.userId());
+                ps.setString(3, activity.action());
+                ps.setString(4, activity.details());
+                ps.setTimestamp(5, Timestamp.valueOf(activity.createdAt()));
+            });
+        } catch (DataAccessException e) {
+            // Typically one row whose user was deleted in the meantime; keep the rest of the batch
+            for (Activity activity : batch) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, activity.id(), activity.userId(), activity.action(),
+                            activity.details(), Timestamp.valueOf(activity.createdAt()));
+                } catch (DataAccessException rowFailure) {
+                    logger.warn("Dropping activity {} for user {}: {}", activity.action(), activity.userId(), rowFailure.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.orbyq.backend.service;
+
+import com.orbyq.backend.config.CurrentUser;
+import com.orbyq.backend.dto.ActivityFeedDTO;
+import com.orbyq.backend.dto.DashboardSummaryDTO;
+import com.orbyq.backend.repository.ActivityLogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public class ActivityService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private ActivityLogRepository activityLogRepository;
+
+    @Transactional(readOnly = true)
+    public ActivityFeedDTO getFeed(CurrentUser currentUser, String cursor, int size, String actionPrefix) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Long userId = currentUser.id();
+        // One extra row tells us whether there is a next page without counting
+        Limit limit = Limit.of(size + 1);
+        String pattern = actionPrefix == null || actionPrefix.isBlank() ? null : escapeLike(actionPrefix) + "%";
+
+        List<ActivityLogRepository.ActivityEntry> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = pattern == null
+                    ? activityLogRepository.findFeed(userId, limit)
+                    : activityLogRepository.findFeedByAction(userId, pattern, limit);
+        } else {
+            Cursor after = Cursor.decode(cursor);
+            rows = pattern == null
+                    ? activityLogRepository.findFeedBefore(userId, after.createdAt(), after.id(), limit)
+                    : activityLogRepository.findFeedByActionBefore(userId, pattern, after.createdAt(), after.id(), limit);
+        }
+
+        boolean hasMore = rows.size() > size;
+        List<ActivityLogRepository.ActivityEntry> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            ActivityLogRepository.ActivityEntry last = page.get(page.size() - 1);
+            nextCursor = new Cursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        List<DashboardSummaryDTO.ActivityDTO> activities = page.stream()
+                .map(a -> new DashboardSummaryDTO.ActivityDTO(a.getAction(), a.getDetails(), a.getCreatedAt()))
+                .toList();
+        return new ActivityFeedDTO(activities, nextCursor);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // Position of the last row served: (createdAt, id), the same order the feed index is sorted in
+    record Cursor(LocalDateTime createdAt, UUID id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), UUID.fromString(raw.substring(separator + 1)));
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
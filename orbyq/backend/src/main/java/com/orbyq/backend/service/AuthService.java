@@ -5,18 +5,18 @@ import com.orbyq.backend.dto.LoginRequest;
 import com.orbyq.backend.dto.AuthResponse;
 import com.orbyq.backend.model.User;
 import com.orbyq.backend.repository.UserRepository;
+import com.orbyq.backend.config.AuthenticatedUser;
 import com.orbyq.backend.config.JwtUtil;
+import com.orbyq.backend.config.VerifiedToken;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
 public class AuthService {
@@ -34,6 +34,7 @@ public class AuthService {
         this.jwtUtil = jwtUtil;
     }
 
+    @Transactional
     public AuthResponse register(RegisterRequest request) {
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new IllegalArgumentException("Email already exists");
@@ -52,45 +53,41 @@ public class AuthService {
 
         userRepository.save(user);
 
-        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
-                user.getEmail(), user.getPassword(), roles.stream()
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList())
-        );
-
-        String token = jwtUtil.generateToken(userDetails);
-        String refreshToken = jwtUtil.generateRefreshToken(userDetails);
+        AuthenticatedUser principal = AuthenticatedUser.from(user);
+        String token = jwtUtil.generateToken(principal);
+        String refreshToken = jwtUtil.generateRefreshToken(principal);
         return new AuthResponse(token, refreshToken);
     }
 
+    // Not transactional: the user lookup has its own read-only transaction, so no connection is held through the password check
     public AuthResponse login(LoginRequest request) {
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
         );
 
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        String token = jwtUtil.generateToken(userDetails);
-        String refreshToken = jwtUtil.generateRefreshToken(userDetails);
+        AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+        String token = jwtUtil.generateToken(principal);
+        String refreshToken = jwtUtil.generateRefreshToken(principal);
         return new AuthResponse(token, refreshToken);
     }
 
+    @Transactional(readOnly = true)
     public AuthResponse refreshToken(String refreshToken) {
-        if (!jwtUtil.validateRefreshToken(refreshToken)) {
-            throw new IllegalArgumentException("Invalid refresh token");
-        }
-
-        String email = jwtUtil.extractUsernameFromRefreshToken(refreshToken);
-        User user = userRepository.findByEmail(email)
+        VerifiedToken verified = jwtUtil.verifyRefreshToken(refreshToken)
+                .orElseThrow(() -> new IllegalArgumentException("Invalid refresh token"));
+        User user = (verified.userId() != null
+                ? userRepository.findWithRolesById(verified.userId())
+                : userRepository.findWithRolesByEmail(verified.subject()))
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
-        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
-                user.getEmail(), user.getPassword(), user.getRoles().stream()
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList())
-        );
+        // Refresh tokens issued before a credential or role change must not mint new access tokens
+        if (verified.userId() != null && verified.securityVersion() != user.getSecurityVersion()) {
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
 
-        String newToken = jwtUtil.generateToken(userDetails);
-        String newRefreshToken = jwtUtil.generateRefreshToken(userDetails); // Rotate refresh token
+        AuthenticatedUser principal = AuthenticatedUser.from(user);
+        String newToken = jwtUtil.generateToken(principal);
+        String newRefreshToken = jwtUtil.generateRefreshToken(principal); // Rotate refresh token
         return new AuthResponse(newToken, newRefreshToken);
     }
 }
\ No newline at end of file
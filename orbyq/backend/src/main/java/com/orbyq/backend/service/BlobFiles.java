@@ -0,0 +1,217 @@
+package com.orbyq.backend.service;
+
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// On-disk layout of the blob store: <root>/<first two hex digits>/<sha-256>. Uploads stream into <root>/tmp while
+// being hashed and are then moved into place, so a blob path only ever holds complete content.
+class BlobFiles {
+
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final Pattern SHARD = Pattern.compile("[0-9a-f]{2}");
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+
+    BlobFiles(Path root) {
+        this.root = root;
+    }
+
+    Path path(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    BlobStore.Staged stage(InputStream in, String declaredType) throws IOException {
+        return stage(in, declaredType, Long.MAX_VALUE);
+    }
+
+    // Copies through one fixed buffer, so an upload of any size costs the same heap. The type is sniffed from the
+    // first chunk, read in full so short reads from the network don't hide the signature.
+    BlobStore.Staged stage(InputStream in, String declaredType, long maxSize) throws IOException {
+        Path tmp = root.resolve("tmp");
+        Files.createDirectories(tmp);
+        Path file = Files.createTempFile(tmp, "upload", null);
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[CHUNK_SIZE];
+        String contentType;
+        long size;
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(file), digest)) {
+            int read = in.readNBytes(buffer, 0, buffer.length);
+            contentType = ImageTypes.sniff(buffer, read, declaredType);
+            size = 0;
+            while (read > 0) {
+                size += read;
+                if (size > maxSize) {
+                    throw new MaxUploadSizeExceededException(maxSize);
+                }
+                out.write(buffer, 0, read);
+                read = in.read(buffer);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new BlobStore.Staged(HexFormat.of().formatHex(digest.digest()), size, contentType, file);
+    }
+
+    // Joins the parts into one staged file. The copy itself stays in the kernel (transferTo between file channels);
+    // the only pass through user space is the read for the hash, which content addressing can't do without.
+    BlobStore.Staged assemble(List<Path> parts, String declaredType) throws IOException {
+        Path tmp = root.resolve("tmp");
+        Files.createDirectories(tmp);
+        Path file = Files.createTempFile(tmp, "upload", null);
+        try {
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                for (Path part : parts) {
+                    try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                        long size = in.size();
+                        long position = 0;
+                        while (position < size) {
+                            position += in.transferTo(position, size - position, out);
+                        }
+                    }
+                }
+            }
+            MessageDigest digest = sha256();
+            byte[] buffer = new byte[CHUNK_SIZE];
+            String contentType;
+            long size = 0;
+            try (InputStream in = Files.newInputStream(file)) {
+                int read = in.readNBytes(buffer, 0, buffer.length);
+                contentType = ImageTypes.sniff(buffer, read, declaredType);
+                while (read > 0) {
+                    digest.update(buffer, 0, read);
+                    size += read;
+                    read = in.read(buffer);
+                }
+            }
+            return new BlobStore.Staged(HexFormat.of().formatHex(digest.digest()), size, contentType, file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    // Same hash, same bytes, so an existing copy may be replaced or kept. Either way the file ends up freshly
+    // modified, which keeps the orphan sweep off it while the row that references it commits.
+    void commit(BlobStore.Staged staged) throws IOException {
+        Path target = path(staged.hash());
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(staged.file(), target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(staged.file());
+            Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+        }
+    }
+
+    // Hashes of stored files last modified before the cutoff, handed over in batches in no particular order
+    void forEachUntouched(Instant before, int batchSize, Consumer<List<String>> action) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        List<String> batch = new ArrayList<>(batchSize);
+        try (Stream<Path> shards = Files.list(root)) {
+            for (Path shard : (Iterable<Path>) shards::iterator) {
+                if (!SHARD.matcher(shard.getFileName().toString()).matches() || !Files.isDirectory(shard)) {
+                    continue;
+                }
+                try (Stream<Path> blobs = Files.list(shard)) {
+                    for (Path file : (Iterable<Path>) blobs::iterator) {
+                        String name = file.getFileName().toString();
+                        if (HASH.matcher(name).matches() && isUntouched(file, before)) {
+                            batch.add(name);
+                        }
+                        if (batch.size() == batchSize) {
+                            action.accept(List.copyOf(batch));
+                            batch.clear();
+                        }
+                    }
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            action.accept(List.copyOf(batch));
+        }
+    }
+
+    // Deletes a stored file unless it was modified since the cutoff. It is renamed out of the way first: a commit
+    // of the same hash that lands in between either puts a fresh file back after the rename, or is the file the
+    // rename took, which is then seen to be fresh and restored.
+    boolean deleteIfUntouched(String hash, Instant before) throws IOException {
+        Path target = path(hash);
+        Path tmp = root.resolve("tmp");
+        Files.createDirectories(tmp);
+        Path swept = tmp.resolve(hash + ".sweep");
+        try {
+            Files.move(target, swept, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (!isUntouched(swept, before)) {
+            Files.move(swept, target, StandardCopyOption.ATOMIC_MOVE);
+            return false;
+        }
+        Files.delete(swept);
+        return true;
+    }
+
+    // Uploads that never reached commit(), e.g. after a crash; anything still being written is recent
+    int deleteStaleUploads(Instant before) throws IOException {
+        Path tmp = root.resolve("tmp");
+        if (!Files.isDirectory(tmp)) {
+            return 0;
+        }
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(tmp)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (isUntouched(file, before) && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private static boolean isUntouched(Path file, Instant before) throws IOException {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(before);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    void delete(String hash) throws IOException {
+        Files.deleteIfExists(path(hash));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.orbyq.backend.service;
+
+import com.orbyq.backend.model.Blob;
+import com.orbyq.backend.repository.BlobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Content-addressed image storage for canvas items and the mood board. Bytes live on disk once per SHA-256 and the items keep a
+// "blob:<hash>" reference, counted in the blobs table. Blobs left without references are swept after a grace
+// period, so an upload racing a delete of the same image never loses its file. Files are moved into place inside
+// the transaction that writes their row, so a rollback can leave a file without one; the sweep removes those too.
+@Service
+public class BlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobStore.class);
+
+    private static final String REFERENCE_PREFIX = "blob:";
+    private static final String URL_PATH = "/api/blobs/";
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    // A stored reference, or the URL handed out for one coming back in an update
+    private static final Pattern INCOMING_REFERENCE = Pattern.compile("(?:blob:|.*/api/blobs/)([0-9a-f]{64})");
+    private static final Pattern DATA_URI = Pattern.compile("data:(image/[\\w.+-]+);base64,");
+    private static final int SWEEP_BATCH = 100;
+
+    @Autowired
+    private BlobRepository blobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${blobs.dir:data/blobs}")
+    private String directory;
+
+    @Value("${blobs.max-size:${spring.servlet.multipart.max-file-size:10MB}}")
+    private DataSize maxSize;
+
+    @Value("${blobs.sweep-grace-period:PT1H}")
+    private Duration gracePeriod;
+
+    private BlobFiles files;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        files = new BlobFiles(Path.of(directory));
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Bytes on disk under a temporary name with their hash; closing removes the temporary file if still there
+    public record Staged(String hash, long size, String contentType, Path file) implements AutoCloseable {
+
+        @Override
+        public void close() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public Staged stage(MultipartFile file) throws IOException {
+        String contentType = file.getContentType();
+        if (contentType == null || !contentType.startsWith("image/")) {
+            String name = file.getOriginalFilename();
+            contentType = "image/" + (name != null ? name.substring(name.lastIndexOf('.') + 1) : "octet-stream");
+        }
+        try (InputStream in = file.getInputStream()) {
+            return stage(in, contentType);
+        }
+    }
+
+    // Straight from a request body or any other stream; reads until the end but never past blobs.max-size
+    public Staged stage(InputStream in, String declaredType) throws IOException {
+        return files.stage(in, declaredType, maxSize.toBytes());
+    }
+
+    // Decodes while streaming out of the String, so the image never exists as a whole byte array
+    public Staged stageDataUri(String dataUri) {
+        Matcher header = DATA_URI.matcher(dataUri);
+        if (!header.lookingAt()) {
+            throw new IllegalArgumentException("Image content must be a base64 data URI");
+        }
+        try (InputStream in = Base64.getDecoder().wrap(asciiStream(dataUri, header.end()))) {
+            return stage(in, header.group(1));
+        } catch (IOException e) {
+            // The decoder reports malformed base64 as an I/O error partway through
+            throw new IllegalArgumentException("Image content must be a base64 data URI");
+        }
+    }
+
+    public Staged stage(byte[] bytes, String contentType) {
+        try {
+            return files.stage(new ByteArrayInputStream(bytes), contentType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Staged assemble(List<Path> parts, String declaredType) throws IOException {
+        return files.assemble(parts, declaredType);
+    }
+
+    // Stores the blob without counting a reference, for a client to point an item at next; if nothing does within
+    // the sweep grace period it goes the way of any unreferenced blob. An existing blob only has that clock reset.
+    @Transactional
+    public String publish(Staged staged) {
+        blobRepository.insertOrTouch(staged.hash(), staged.size(), staged.contentType(), LocalDateTime.now());
+        try {
+            files.commit(staged);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return staged.hash();
+    }
+
+    // Counts a new reference, creating the row and moving the file into place if this is the first. The row is
+    // locked before the file moves, so a sweep can't delete the file underneath a blob that just got a reference.
+    @Transactional
+    public String acquire(Staged staged) {
+        blobRepository.acquireOrInsert(staged.hash(), staged.size(), staged.contentType(), LocalDateTime.now());
+        try {
+            files.commit(staged);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return REFERENCE_PREFIX + staged.hash();
+    }
+
+    @Transactional
+    public void acquire(String hash) {
+        if (blobRepository.acquire(hash, LocalDateTime.now()) == 0) {
+            throw new EntityNotFoundException("Blob not found: " + hash);
+        }
+    }
+
+    @Transactional
+    public void release(String hash) {
+        blobRepository.release(hash, LocalDateTime.now());
+    }
+
+    @Transactional(readOnly = true)
+    public Blob find(String hash) {
+        if (!HASH.matcher(hash).matches()) {
+            throw new EntityNotFoundException("Blob not found: " + hash);
+        }
+        return blobRepository.findById(hash).orElseThrow(() -> new EntityNotFoundException("Blob not found: " + hash));
+    }
+
+    public Path path(String hash) {
+        return files.path(hash);
+    }
+
+    @Scheduled(initialDelayString = "${blobs.sweep-interval:3600000}", fixedDelayString = "${blobs.sweep-interval:3600000}")
+    public void sweep() {
+        sweepUnreferenced();
+        sweepOrphanFiles();
+    }
+
+    private void sweepUnreferenced() {
+        LocalDateTime before = LocalDateTime.now().minus(gracePeriod);
+        int deleted = 0;
+        while (true) {
+            List<String> hashes = blobRepository.findUnreferenced(before, SWEEP_BATCH);
+            int batchDeleted = 0;
+            for (String hash : hashes) {
+                try {
+                    // Row and file go together, under the row lock a new reference would have to wait for
+                    Boolean swept = transactionTemplate.execute(status -> {
+                        if (blobRepository.deleteUnreferenced(hash, before) == 0) {
+                            return false;
+                        }
+                        try {
+                            files.delete(hash);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        return true;
+                    });
+                    if (Boolean.TRUE.equals(swept)) {
+                        batchDeleted++;
+                    }
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to sweep blob {}", hash, e);
+                }
+            }
+            deleted += batchDeleted;
+            // A short batch was the last one; one where nothing could be deleted would only come back again
+            if (hashes.size() < SWEEP_BATCH || batchDeleted == 0) {
+                break;
+            }
+        }
+        if (deleted > 0) {
+            logger.info("Swept {} unreferenced blob(s)", deleted);
+        }
+    }
+
+    // Only files untouched for the grace period are candidates, and commit() refreshes a file it reuses, so one
+    // whose row is still being written is never taken
+    private void sweepOrphanFiles() {
+        Instant before = Instant.now().minus(gracePeriod);
+        int[] deleted = {0};
+        try {
+            files.forEachUntouched(before, SWEEP_BATCH, hashes -> {
+                Set<String> referenced = new HashSet<>(blobRepository.findExisting(hashes));
+                for (String hash : hashes) {
+                    if (referenced.contains(hash)) {
+                        continue;
+                    }
+                    try {
+                        if (files.deleteIfUntouched(hash, before)) {
+                            deleted[0]++;
+                        }
+                    } catch (IOException e) {
+                        logger.warn("Failed to sweep orphan blob file {}", hash, e);
+                    }
+                }
+            });
+            deleted[0] += files.deleteStaleUploads(before);
+        } catch (IOException e) {
+            logger.warn("Failed to sweep orphan blob files", e);
+        }
+        if (deleted[0] > 0) {
+            logger.info("Swept {} orphan blob file(s)", deleted[0]);
+        }
+    }
+
+    // Characters of a String from start as single bytes; anything outside ASCII becomes a byte no base64 decoder accepts
+    private static InputStream asciiStream(String text, int start) {
+        return new InputStream() {
+            private int position = start;
+
+            @Override
+            public int read() {
+                return position < text.length() ? ascii(text.charAt(position++)) : -1;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                if (length == 0) {
+                    return 0;
+                }
+                if (position >= text.length()) {
+                    return -1;
+                }
+                int count = Math.min(length, text.length() - position);
+                for (int i = 0; i < count; i++) {
+                    buffer[offset + i] = (byte) ascii(text.charAt(position++));
+                }
+                return count;
+            }
+
+            private int ascii(char c) {
+                return c < 0x80 ? c : '!';
+            }
+        };
+    }
+
+    // The hash a stored reference or an incoming blob URL points at, or null for any other content
+    public static String hashOf(String content) {
+        if (content == null) {
+            return null;
+        }
+        Matcher reference = INCOMING_REFERENCE.matcher(content);
+        return reference.matches() ? reference.group(1) : null;
+    }
+
+    public static String reference(String hash) {
+        return REFERENCE_PREFIX + hash;
+    }
+
+    // Stored content as clients see it: a blob reference becomes the URL that serves it
+    public static String toPublic(String content) {
+        String hash = content != null && content.startsWith(REFERENCE_PREFIX) ? hashOf(content) : null;
+        if (hash == null) {
+            return content;
+        }
+        if (RequestContextHolder.getRequestAttributes() == null) {
+            return URL_PATH + hash;
+        }
+        return ServletUriComponentsBuilder.fromCurrentContextPath().path(URL_PATH + hash).toUriString();
+    }
+}
@@ -0,0 +1,53 @@
+package com.orbyq.backend.service;
+
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// V6: moves the base64 images inlined in canvas_items.content into the blob store
+@Component
+public class CanvasImageBlobMigration implements JavaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(CanvasImageBlobMigration.class);
+
+    @Value("${blobs.dir:data/blobs}")
+    private String directory;
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("6");
+    }
+
+    @Override
+    public String getDescription() {
+        return "Move canvas images to blob store";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) throws IOException {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        int moved = InlineImages.moveToBlobStore(jdbcTemplate, new BlobFiles(Path.of(directory)), "canvas_items", "content", "type = 'image'");
+        if (moved > 0) {
+            logger.info("Moved {} canvas image(s) into the blob store", moved);
+        }
+    }
+}
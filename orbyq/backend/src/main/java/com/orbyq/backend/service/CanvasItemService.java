@@ -2,21 +2,23 @@ package com.orbyq.backend.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orbyq.backend.config.CurrentUser;
 import com.orbyq.backend.dto.CanvasDTO;
 import com.orbyq.backend.dto.CanvasItemDTO;
 import com.orbyq.backend.model.Canvas;
 import com.orbyq.backend.model.CanvasItem;
-import com.orbyq.backend.model.User;
 import com.orbyq.backend.repository.CanvasItemRepository;
 import com.orbyq.backend.repository.CanvasRepository;
 import com.orbyq.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -35,44 +37,48 @@ public class CanvasItemService {
     @Autowired
     private ObjectMapper objectMapper;
 
-    public List<CanvasDTO.CanvasInfoDTO> getUserCanvases(String username) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    @Autowired
+    private ActivityRecorder activityRecorder;
+
+    @Autowired
+    private BlobStore blobStore;
 
-        List<Canvas> canvases = canvasRepository.findByUser(user);
+    @Transactional(readOnly = true)
+    public List<CanvasDTO.CanvasInfoDTO> getUserCanvases(CurrentUser currentUser) {
+        List<CanvasRepository.CanvasSummary> canvases = canvasRepository.findSummariesByUserId(currentUser.id());
         return canvases.stream().map(canvas -> {
             CanvasDTO.CanvasInfoDTO canvasInfo = new CanvasDTO.CanvasInfoDTO();
-            canvasInfo.setId(canvas.getId().toString());
-            canvasInfo.setTitle(canvas.getTitle());
+            canvasInfo.setId(canvas.id().toString());
+            canvasInfo.setTitle(canvas.title());
+            canvasInfo.setVersion(canvas.version());
             return canvasInfo;
         }).collect(Collectors.toList());
     }
 
-    public CanvasDTO getCanvasItems(String username, String canvasId) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        Canvas canvas = canvasRepository.findById(UUID.fromString(canvasId))
+    @Transactional(readOnly = true)
+    public CanvasDTO getCanvasItems(CurrentUser currentUser, String canvasId) {
+        CanvasRepository.CanvasSummary canvas = canvasRepository.findSummaryById(UUID.fromString(canvasId))
                 .orElseThrow(() -> new IllegalArgumentException("Canvas not found"));
 
-        if (!canvas.getUser().getId().equals(user.getId())) {
+        if (!canvas.ownerId().equals(currentUser.id())) {
             throw new SecurityException("Unauthorized to access this canvas");
         }
 
-        List<CanvasItem> items = canvasItemRepository.findByCanvas(canvas);
+        List<CanvasItemRepository.ItemView> items = canvasItemRepository.findViewsByCanvasId(canvas.id());
         List<CanvasItemDTO> itemDTOs = items.stream().map(item -> {
             CanvasItemDTO dto = new CanvasItemDTO();
-            dto.setId(item.getId().toString());
-            dto.setCanvasId(item.getCanvas().getId().toString());
-            dto.setType(item.getType());
-            dto.setContent(item.getContent());
-            dto.setX(item.getX());
-            dto.setY(item.getY());
-            dto.setWidth(item.getWidth());
-            dto.setHeight(item.getHeight());
+            dto.setId(item.id().toString());
+            dto.setCanvasId(canvas.id().toString());
+            dto.setType(item.type());
+            dto.setContent(isImage(item.type()) ? BlobStore.toPublic(item.content()) : item.content());
+            dto.setX(item.x());
+            dto.setY(item.y());
+            dto.setWidth(item.width());
+            dto.setHeight(item.height());
+            dto.setVersion(item.version());
             try {
-                CanvasItemDTO.StyleDTO style = item.getStyleJson() != null
-                        ? objectMapper.readValue(item.getStyleJson(), CanvasItemDTO.StyleDTO.class)
+                CanvasItemDTO.StyleDTO style = item.styleJson() != null
+                        ? objectMapper.readValue(item.styleJson(), CanvasItemDTO.StyleDTO.class)
                         : new CanvasItemDTO.StyleDTO();
                 dto.setStyle(style != null ? style : new CanvasItemDTO.StyleDTO());
             } catch (JsonProcessingException e) {
@@ -83,57 +89,66 @@ public class CanvasItemService {
 
         CanvasDTO canvasDTO = new CanvasDTO();
         CanvasDTO.CanvasInfoDTO canvasInfo = new CanvasDTO.CanvasInfoDTO();
-        canvasInfo.setId(canvas.getId().toString());
-        canvasInfo.setTitle(canvas.getTitle());
+        canvasInfo.setId(canvas.id().toString());
+        canvasInfo.setTitle(canvas.title());
+        canvasInfo.setVersion(canvas.version());
         canvasDTO.setCanvas(canvasInfo);
         canvasDTO.setItems(itemDTOs);
         return canvasDTO;
     }
 
-    public Canvas createCanvas(String username, String title) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
+    @Transactional
+    public CanvasDTO.CanvasInfoDTO createCanvas(CurrentUser currentUser, String title) {
         Canvas canvas = new Canvas();
-        canvas.setUser(user);
+        canvas.setUser(userRepository.getReferenceById(currentUser.id()));
         canvas.setTitle(title);
         canvas.setCreatedAt(LocalDate.now());
         canvas.setVersion(0L);
 
-        return canvasRepository.save(canvas);
+        Canvas saved = canvasRepository.save(canvas);
+        activityRecorder.record(currentUser.id(), "Canvas created", "Created canvas \"" + title + "\"");
+        CanvasDTO.CanvasInfoDTO canvasInfo = new CanvasDTO.CanvasInfoDTO();
+        canvasInfo.setId(saved.getId().toString());
+        canvasInfo.setTitle(saved.getTitle());
+        canvasInfo.setVersion(saved.getVersion());
+        return canvasInfo;
     }
 
-    public void updateCanvasTitle(String username, String canvasId, String newTitle) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
+    @Transactional
+    public void updateCanvasTitle(CurrentUser currentUser, String canvasId, String newTitle) {
         Canvas canvas = canvasRepository.findById(UUID.fromString(canvasId))
                 .orElseThrow(() -> new IllegalArgumentException("Canvas not found"));
 
-        if (!canvas.getUser().getId().equals(user.getId())) {
+        if (!canvas.getUser().getId().equals(currentUser.id())) {
             throw new SecurityException("Unauthorized to update this canvas");
         }
 
+        String oldTitle = canvas.getTitle();
         canvas.setTitle(newTitle);
         canvasRepository.save(canvas);
+        activityRecorder.record(currentUser.id(), "Canvas renamed", "Renamed canvas \"" + oldTitle + "\" to \"" + newTitle + "\"");
     }
 
-    public CanvasItem createCanvasItem(String username, String canvasId, CanvasItemDTO canvasItemDTO) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    @Transactional
+    public CanvasItemDTO createCanvasItem(CurrentUser currentUser, String canvasId, CanvasItemDTO canvasItemDTO) {
+        return createCanvasItem(currentUser, canvasId, canvasItemDTO, null);
+    }
 
+    // upload is a file the controller staged in the blob store; it is also the one to discard it afterwards
+    @Transactional
+    public CanvasItemDTO createCanvasItem(CurrentUser currentUser, String canvasId, CanvasItemDTO canvasItemDTO, BlobStore.Staged upload) {
         Canvas canvas = canvasRepository.findById(UUID.fromString(canvasId))
                 .orElseThrow(() -> new IllegalArgumentException("Canvas not found"));
 
-        if (!canvas.getUser().getId().equals(user.getId())) {
+        if (!canvas.getUser().getId().equals(currentUser.id())) {
             throw new SecurityException("Unauthorized to create items in this canvas");
         }
 
         CanvasItem item = new CanvasItem();
         item.setCanvas(canvas);
-        item.setUser(user);
+        item.setUser(userRepository.getReferenceById(currentUser.id()));
         item.setType(canvasItemDTO.getType());
-        item.setContent(canvasItemDTO.getContent());
+        item.setContent(acquireContent(canvasItemDTO.getType(), canvasItemDTO.getContent(), upload));
         item.setX(canvasItemDTO.getX());
         item.setY(canvasItemDTO.getY());
         item.setWidth(canvasItemDTO.getWidth());
@@ -144,86 +159,148 @@ public class CanvasItemService {
                     : new CanvasItemDTO.StyleDTO();
             String styleJson = objectMapper.writeValueAsString(style);
             item.setStyleJson(styleJson);
+            canvasItemDTO.setStyle(style);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Failed to serialize style to JSON", e);
         }
         item.setCreatedAt(LocalDate.now());
         item.setVersion(0L);
 
-        return canvasItemRepository.save(item);
+        CanvasItem saved = canvasItemRepository.save(item);
+        activityRecorder.record(currentUser.id(), "Canvas item added",
+                "Added " + article(canvasItemDTO.getType()) + " item to \"" + canvas.getTitle() + "\"");
+        // Echo the request back with the server-assigned fields; image content becomes its blob URL
+        canvasItemDTO.setContent(isImage(saved.getType()) ? BlobStore.toPublic(saved.getContent()) : saved.getContent());
+        canvasItemDTO.setId(saved.getId().toString());
+        canvasItemDTO.setCanvasId(canvas.getId().toString());
+        canvasItemDTO.setVersion(saved.getVersion());
+        return canvasItemDTO;
     }
 
-    public void updateCanvasItem(String username, String canvasId, String itemId, CanvasItemDTO canvasItemDTO) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        Canvas canvas = canvasRepository.findById(UUID.fromString(canvasId))
-                .orElseThrow(() -> new IllegalArgumentException("Canvas not found"));
-
-        if (!canvas.getUser().getId().equals(user.getId())) {
-            throw new SecurityException("Unauthorized to update items in this canvas");
-        }
-
-        CanvasItem item = canvasItemRepository.findById(UUID.fromString(itemId))
-                .orElseThrow(() -> new IllegalArgumentException("Canvas item not found"));
-
-        if (!item.getCanvas().getId().equals(canvas.getId()) || !item.getUser().getId().equals(user.getId())) {
-            throw new SecurityException("Unauthorized to update this canvas item");
-        }
+    @Transactional
+    public void updateCanvasItem(CurrentUser currentUser, String canvasId, String itemId, CanvasItemDTO canvasItemDTO) {
+        updateCanvasItem(currentUser, canvasId, itemId, canvasItemDTO, null);
+    }
 
-        item.setType(canvasItemDTO.getType());
-        item.setContent(canvasItemDTO.getContent());
-        item.setX(canvasItemDTO.getX());
-        item.setY(canvasItemDTO.getY());
-        item.setWidth(canvasItemDTO.getWidth());
-        item.setHeight(canvasItemDTO.getHeight());
+    @Transactional
+    public void updateCanvasItem(CurrentUser currentUser, String canvasId, String itemId, CanvasItemDTO canvasItemDTO,
+                                 BlobStore.Staged upload) {
+        UUID canvasUuid = UUID.fromString(canvasId);
+        UUID id = UUID.fromString(itemId);
+        String styleJson;
         try {
             CanvasItemDTO.StyleDTO style = canvasItemDTO.getStyle() != null
                     ? canvasItemDTO.getStyle()
                     : new CanvasItemDTO.StyleDTO();
-            String styleJson = objectMapper.writeValueAsString(style);
-            item.setStyleJson(styleJson);
+            styleJson = objectMapper.writeValueAsString(style);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Failed to serialize style to JSON", e);
         }
 
-        canvasItemRepository.save(item);
-    }
-
-    public void deleteCanvasItem(String username, String canvasId, String itemId) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        // New image bytes are staged first and only counted once the update has matched the item. A blob URL coming
+        // back, as when an image is only moved or resized, is stored as its reference and counted only if it changed.
+        String content = canvasItemDTO.getContent();
+        boolean image = isImage(canvasItemDTO.getType());
+        BlobStore.Staged staged = upload != null ? upload
+                : image && content != null && content.startsWith("data:") ? blobStore.stageDataUri(content) : null;
+        try {
+            String newHash = staged != null ? staged.hash() : image ? BlobStore.hashOf(content) : null;
+            if (newHash != null) {
+                content = BlobStore.reference(newHash);
+            }
 
-        Canvas canvas = canvasRepository.findById(UUID.fromString(canvasId))
-                .orElseThrow(() -> new IllegalArgumentException("Canvas not found"));
+            Optional<CanvasItemRepository.StoredContent> previous = canvasItemRepository.updateForOwner(id, canvasUuid, currentUser.id(),
+                    canvasItemDTO.getType(), content,
+                    canvasItemDTO.getX(), canvasItemDTO.getY(), canvasItemDTO.getWidth(), canvasItemDTO.getHeight(), styleJson);
+            OwnedWrites.requireAffected(previous.isPresent() ? 1 : 0, canvasItemRepository, id, "Canvas item not found", "Unauthorized to update this canvas item");
 
-        if (!canvas.getUser().getId().equals(user.getId())) {
-            throw new SecurityException("Unauthorized to delete items in this canvas");
+            String oldHash = isImage(previous.get().getType()) ? BlobStore.hashOf(previous.get().getContent()) : null;
+            if (staged != null) {
+                blobStore.acquire(staged);
+            } else if (newHash != null && !newHash.equals(oldHash)) {
+                blobStore.acquire(newHash);
+            }
+            if (oldHash != null && (staged != null || !oldHash.equals(newHash))) {
+                blobStore.release(oldHash);
+            }
+        } finally {
+            if (staged != null && staged != upload) {
+                discard(staged);
+            }
         }
+    }
 
-        CanvasItem item = canvasItemRepository.findById(UUID.fromString(itemId))
-                .orElseThrow(() -> new IllegalArgumentException("Canvas item not found"));
-
-        if (!item.getCanvas().getId().equals(canvas.getId()) || !item.getUser().getId().equals(user.getId())) {
-            throw new SecurityException("Unauthorized to delete this canvas item");
+    @Transactional
+    public void deleteCanvasItem(CurrentUser currentUser, String canvasId, String itemId) {
+        UUID id = UUID.fromString(itemId);
+        Optional<CanvasItemRepository.StoredContent> deleted = canvasItemRepository.deleteForOwner(id, UUID.fromString(canvasId), currentUser.id());
+        OwnedWrites.requireAffected(deleted.isPresent() ? 1 : 0, canvasItemRepository, id, "Canvas item not found", "Unauthorized to delete this canvas item");
+        String type = deleted.get().getType();
+        String hash = isImage(type) ? BlobStore.hashOf(deleted.get().getContent()) : null;
+        if (hash != null) {
+            blobStore.release(hash);
         }
-
-        canvasItemRepository.delete(item);
+        activityRecorder.record(currentUser.id(), "Canvas item deleted", "Removed " + article(type) + " item from a canvas");
     }
 
     @Transactional
-    public void deleteCanvas(String username, String canvasId) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
+    public void deleteCanvas(CurrentUser currentUser, String canvasId) {
         Canvas canvas = canvasRepository.findById(UUID.fromString(canvasId))
                 .orElseThrow(() -> new IllegalArgumentException("Canvas not found"));
 
-        if (!canvas.getUser().getId().equals(user.getId())) {
+        if (!canvas.getUser().getId().equals(currentUser.id())) {
             throw new SecurityException("Unauthorized to delete this canvas");
         }
 
+        for (String content : canvasItemRepository.findImageContentsByCanvasId(canvas.getId())) {
+            String hash = BlobStore.hashOf(content);
+            if (hash != null) {
+                blobStore.release(hash);
+            }
+        }
         // Delete the canvas (associated items will be deleted via cascade)
         canvasRepository.delete(canvas);
+        activityRecorder.record(currentUser.id(), "Canvas deleted", "Deleted canvas \"" + canvas.getTitle() + "\"");
+    }
+
+    // Image content is stored as a blob reference: an upload or data URI goes into the blob store, and a blob URL
+    // or reference counts as one more use of that blob. Anything else is kept as sent.
+    private String acquireContent(String type, String content, BlobStore.Staged upload) {
+        if (upload != null) {
+            return blobStore.acquire(upload);
+        }
+        if (!isImage(type) || content == null) {
+            return content;
+        }
+        if (content.startsWith("data:")) {
+            BlobStore.Staged staged = blobStore.stageDataUri(content);
+            try {
+                return blobStore.acquire(staged);
+            } finally {
+                discard(staged);
+            }
+        }
+        String hash = BlobStore.hashOf(content);
+        if (hash == null) {
+            return content;
+        }
+        blobStore.acquire(hash);
+        return BlobStore.reference(hash);
+    }
+
+    private static void discard(BlobStore.Staged staged) {
+        try {
+            staged.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isImage(String type) {
+        return "image".equals(type);
+    }
+
+    private static String article(String type) {
+        return (type != null && !type.isEmpty() && "aeiou".indexOf(Character.toLowerCase(type.charAt(0))) >= 0 ? "an " : "a ") + type;
     }
 }
\ No newline at end of file
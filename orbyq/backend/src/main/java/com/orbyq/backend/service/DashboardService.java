@@ -1,118 +1,189 @@
 package com.orbyq.backend.service;
 
+import com.orbyq.backend.config.CurrentUser;
 import com.orbyq.backend.dto.DashboardSummaryDTO;
-import com.orbyq.backend.model.Task;
-import com.orbyq.backend.model.Project;
-import com.orbyq.backend.model.Idea;
-import com.orbyq.backend.model.ActivityLog;
-import com.orbyq.backend.model.User;
+import com.orbyq.backend.model.DailyCompletion;
+import com.orbyq.backend.model.DashboardStats;
+import com.orbyq.backend.repository.DailyCompletionRepository;
 import com.orbyq.backend.repository.TaskRepository;
-import com.orbyq.backend.repository.ProjectRepository;
 import com.orbyq.backend.repository.IdeaRepository;
 import com.orbyq.backend.repository.ActivityLogRepository;
 import com.orbyq.backend.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Service
 public class DashboardService {
+    private static final Logger logger = LoggerFactory.getLogger(DashboardService.class);
+
     @Autowired
     private TaskRepository taskRepository;
     @Autowired
-    private ProjectRepository projectRepository;
-    @Autowired
     private IdeaRepository ideaRepository;
     @Autowired
     private ActivityLogRepository activityLogRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+    @Autowired
+    private DailyCompletionRepository dailyCompletionRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    @Qualifier("dashboardExecutor")
+    private ExecutorService dashboardExecutor;
 
-    public DashboardSummaryDTO getDashboardSummary(String email) {
-        Optional<User> userOpt = userRepository.findByEmail(email);
-        if (userOpt.isEmpty()) {
-            throw new RuntimeException("User not found");
-        }
-        User user = userOpt.get();
-
-        // Tasks
-        List<Task> tasks = taskRepository.findByUser(user);
-        long taskCount = tasks.size();
-        long completedTasks = tasks.stream().filter(Task::isCompleted).count();
-        double taskProgress = taskCount > 0 ? (completedTasks * 100.0 / taskCount) : 0;
-
-        // Projects
-        List<Project> projects = projectRepository.findByUser(user);
-        long projectCount = projects.size();
-        long totalProjectTasks = tasks.stream().filter(t -> t.getProject() != null).count();
-        long completedProjectTasks = tasks.stream().filter(t -> t.getProject() != null && t.isCompleted()).count();
-        double projectProgress = totalProjectTasks > 0 ? (completedProjectTasks * 100.0 / totalProjectTasks) : 0;
-
-        // Ideas
-        List<Idea> ideas = ideaRepository.findByUser(user);
-        long ideaCount = ideas.size();
-        LocalDateTime yesterday = LocalDateTime.now().minusDays(1);
-        long newIdeasSinceYesterday = ideaRepository.countByUserAndCreatedAtAfter(user, yesterday);
-
-        // Recent Project Activities
-        List<ActivityLog> projectActivities = activityLogRepository.findTop5ByUserAndActionStartingWithOrderByCreatedAtDesc(user, "Project");
-        List<DashboardSummaryDTO.ActivityDTO> projectActivityDTOs = projectActivities.stream()
-                .map(a -> new DashboardSummaryDTO.ActivityDTO(a.getAction(), a.getDetails(), a.getCreatedAt()))
-                .toList();
+    @Value("${dashboard.section-timeout:2000}")
+    private long sectionTimeoutMillis;
 
-        // Recent Activities
-        List<ActivityLog> activities = activityLogRepository.findTop5ByUserOrderByCreatedAtDesc(user);
-        List<DashboardSummaryDTO.ActivityDTO> activityDTOs = activities.stream()
-                .map(a -> new DashboardSummaryDTO.ActivityDTO(a.getAction(), a.getDetails(), a.getCreatedAt()))
-                .toList();
+    // Connections all dashboard requests together may hold; keep it well below the Hikari pool size
+    @Value("${dashboard.max-connections:6}")
+    private int maxConnections;
 
-        // Upcoming Tasks (next 7 days)
+    private TransactionTemplate readOnlyTransaction;
+    private Semaphore connectionPermits;
+
+    @PostConstruct
+    void init() {
+        connectionPermits = new Semaphore(maxConnections, true);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        // Whole seconds only; lets the driver cancel a section's statement once its deadline has passed
+        readOnlyTransaction.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(sectionTimeoutMillis + 999)));
+    }
+
+    // Three sections, each one transaction, run concurrently on virtual threads: the name, idea count and week's
+    // completions share one, the short lists another, and the read model has its own because it may build. A
+    // section holds a permit while it has a connection, so however many dashboards load at once they never take
+    // more than maxConnections from the pool. A section that fails or misses its deadline is cancelled and
+    // rendered empty rather than failing the page.
+    public DashboardSummaryDTO getDashboardSummary(CurrentUser currentUser) {
+        Long userId = currentUser.id();
         LocalDate today = LocalDate.now();
-        LocalDate endOfWeek = today.plusDays(7);
-        List<Task> upcomingTasks = taskRepository.findByUserAndDueDateBetween(user, today, endOfWeek);
-        List<DashboardSummaryDTO.TaskDTO> taskDTOs = upcomingTasks.stream()
-                .limit(3)
+        LocalDate monday = today.minusDays(today.getDayOfWeek().getValue() - 1);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMillis);
+        // Not read-only: the first visit builds the user's read model
+        Future<DashboardStats> stats = section(deadline, () -> dashboardStatsService.getStats(userId));
+        Future<Header> header = section(deadline, () -> readOnlyTransaction.execute(status -> new Header(
+                userRepository.findNameById(userId).orElse(""),
+                ideaRepository.countByUserIdAndCreatedAtAfter(userId, LocalDateTime.now().minusDays(1)),
+                dailyCompletionRepository.findByUserIdAndDayBetween(userId, monday, monday.plusDays(6)))));
+        Future<Lists> lists = section(deadline, () -> readOnlyTransaction.execute(status -> new Lists(
+                toActivityDTOs(activityLogRepository.findProjectFeed(userId, Limit.of(5))),
+                toActivityDTOs(activityLogRepository.findFeed(userId, Limit.of(5))),
+                taskRepository.findUpcoming(userId, today, today.plusDays(7), Limit.of(3)))));
+
+        Header headerSection = await("header", header, deadline, new Header("", 0L, List.of()));
+        Lists listSection = await("lists", lists, deadline, new Lists(List.of(), List.of(), List.of()));
+
+        DashboardSummaryDTO summary = new DashboardSummaryDTO();
+        summary.setUserName(headerSection.userName());
+
+        // Tasks, projects and ideas
+        DashboardStats counters = await("stats", stats, deadline, new DashboardStats());
+        long taskCount = counters.getTaskCount();
+        long totalProjectTasks = counters.getProjectTaskCount();
+        summary.setTaskCount(taskCount);
+        summary.setTaskProgress(taskCount > 0 ? (counters.getCompletedCount() * 100.0 / taskCount) : 0);
+        summary.setProjectCount(counters.getProjectCount());
+        summary.setProjectProgress(totalProjectTasks > 0 ? (counters.getProjectCompletedCount() * 100.0 / totalProjectTasks) : 0);
+        summary.setIdeaCount(counters.getIdeaCount());
+        summary.setNewIdeasSinceYesterday(headerSection.newIdeas());
+
+        // Recent activities
+        summary.setRecentProjectActivities(listSection.projectActivities());
+        summary.setRecentActivities(listSection.activities());
+
+        // Upcoming Tasks (next 7 days)
+        summary.setUpcomingTasks(listSection.upcoming().stream()
                 .map(t -> {
                     String time = t.getDueDate().format(DateTimeFormatter.ofPattern("MMM d, yyyy"));
                     String icon = t.getDueDate().equals(today) ? "Clock" : t.getDueDate().isBefore(today.plusDays(3)) ? "Calendar" : "CheckCircle2";
                     return new DashboardSummaryDTO.TaskDTO(t.getTitle(), time, icon);
                 })
-                .toList();
+                .toList());
 
         // Weekly Productivity
+        Map<LocalDate, Long> completedByDay = new HashMap<>();
+        for (DailyCompletion row : headerSection.weekly()) {
+            completedByDay.put(row.getDay(), row.getCompleted());
+        }
         List<DashboardSummaryDTO.ProductivityDTO> productivity = new ArrayList<>();
         String[] days = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
         for (int i = 0; i < 7; i++) {
-            LocalDate day = today.minusDays(today.getDayOfWeek().getValue() - 1).plusDays(i);
-            long tasksCompletedOnDay = tasks.stream()
-                    .filter(t -> t.isCompleted() && t.getCompletedAt() != null && t.getCompletedAt().equals(day))
-                    .count();
+            long tasksCompletedOnDay = completedByDay.getOrDefault(monday.plusDays(i), 0L);
             productivity.add(new DashboardSummaryDTO.ProductivityDTO(days[i], (int) tasksCompletedOnDay));
         }
-
-        // Build DTO
-        DashboardSummaryDTO summary = new DashboardSummaryDTO();
-        summary.setUserName(user.getName());
-        summary.setTaskCount(taskCount);
-        summary.setTaskProgress(taskProgress);
-        summary.setProjectCount(projectCount);
-        summary.setProjectProgress(projectProgress);
-        summary.setIdeaCount(ideaCount);
-        summary.setNewIdeasSinceYesterday(newIdeasSinceYesterday);
-        summary.setRecentProjectActivities(projectActivityDTOs);
-        summary.setRecentActivities(activityDTOs);
-        summary.setUpcomingTasks(taskDTOs);
         summary.setWeeklyProductivity(productivity);
 
         return summary;
     }
 
+    private <T> Future<T> section(long deadline, Supplier<T> body) {
+        return dashboardExecutor.submit(() -> {
+            if (!connectionPermits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                throw new TimeoutException("No dashboard connection permit before the deadline");
+            }
+            try {
+                return body.get();
+            } finally {
+                connectionPermits.release();
+            }
+        });
+    }
+
+    private <T> T await(String section, Future<T> future, long deadline, T fallback) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            logger.warn("Dashboard section {} timed out", section);
+        } catch (ExecutionException e) {
+            logger.warn("Dashboard section {} failed", section, e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        return fallback;
+    }
+
+    private record Header(String userName, long newIdeas, List<DailyCompletion> weekly) {}
+
+    private record Lists(List<DashboardSummaryDTO.ActivityDTO> projectActivities,
+                         List<DashboardSummaryDTO.ActivityDTO> activities,
+                         List<TaskRepository.UpcomingTask> upcoming) {}
+
+    private static List<DashboardSummaryDTO.ActivityDTO> toActivityDTOs(List<ActivityLogRepository.ActivityEntry> logs) {
+        return logs.stream()
+                .map(a -> new DashboardSummaryDTO.ActivityDTO(a.getAction(), a.getDetails(), a.getCreatedAt()))
+                .toList();
+    }
+
     public String ping() {
         return "Backend is up";
     }
@@ -0,0 +1,46 @@
+package com.orbyq.backend.service;
+
+import com.orbyq.backend.repository.DashboardStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Periodically repairs dashboard counters that drifted from the source tables (manual SQL, idea imports,
+// writes that bypass the services). One set-based query finds drifted users; each is rebuilt in its own transaction.
+@Component
+public class DashboardStatsReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardStatsReconciler.class);
+
+    @Autowired
+    private DashboardStatsRepository dashboardStatsRepository;
+
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+
+    @Value("${dashboard.stats.reconcile-window-days:14}")
+    private int windowDays;
+
+    @Scheduled(initialDelayString = "${dashboard.stats.reconcile-interval:3600000}",
+            fixedDelayString = "${dashboard.stats.reconcile-interval:3600000}")
+    public void reconcile() {
+        dashboardStatsService.pruneDeletedUsers();
+        List<Long> drifted = dashboardStatsRepository.findDriftedUserIds(LocalDate.now().minusDays(windowDays));
+        for (Long userId : drifted) {
+            try {
+                dashboardStatsService.rebuild(userId);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to rebuild dashboard stats for user {}", userId, e);
+            }
+        }
+        if (!drifted.isEmpty()) {
+            logger.info("Rebuilt dashboard stats for {} user(s)", drifted.size());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.orbyq.backend.service;
+
+import com.orbyq.backend.model.DashboardStats;
+import com.orbyq.backend.repository.DailyCompletionRepository;
+import com.orbyq.backend.repository.DashboardStatsRepository;
+import com.orbyq.backend.repository.TaskRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+// Maintains the dashboard read model. Every method joins the caller's transaction, so counters commit or roll
+// back together with the write that moved them.
+@Service
+public class DashboardStatsService {
+
+    @Autowired
+    private DashboardStatsRepository dashboardStatsRepository;
+
+    @Autowired
+    private DailyCompletionRepository dailyCompletionRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void taskCreated(Long userId, boolean inProject) {
+        apply(userId, 1, 0, inProject ? 1 : 0, 0, 0, null, null);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void taskChanged(Long userId, TaskRepository.CompletionTransition transition) {
+        int completedDelta = Boolean.compare(transition.getCompleted(), transition.getWasCompleted());
+        apply(userId, 0, completedDelta, 0, transition.getInProject() ? completedDelta : 0, 0,
+                transition.getWasCompleted() ? transition.getPreviousCompletedAt() : null,
+                transition.getCompleted() ? transition.getCompletedAt() : null);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void taskDeleted(Long userId, TaskRepository.CompletionTransition transition) {
+        int completedDelta = transition.getWasCompleted() ? -1 : 0;
+        apply(userId, -1, completedDelta, transition.getInProject() ? -1 : 0, transition.getInProject() ? completedDelta : 0, 0,
+                transition.getWasCompleted() ? transition.getPreviousCompletedAt() : null, null);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void projectCreated(Long userId) {
+        apply(userId, 0, 0, 0, 0, 1, null, null);
+    }
+
+    @Transactional
+    public DashboardStats getStats(Long userId) {
+        return dashboardStatsRepository.findById(userId).orElseGet(() -> {
+            rebuild(userId);
+            return dashboardStatsRepository.findById(userId).orElseThrow();
+        });
+    }
+
+    // Recomputes one user's read model from the source tables. The stats row is locked first, so any
+    // concurrent writer either committed before the recount (and is included) or applies its delta after.
+    @Transactional
+    public void rebuild(Long userId) {
+        dashboardStatsRepository.insertOrLock(userId);
+        dashboardStatsRepository.recomputeForUser(userId);
+        dailyCompletionRepository.deleteByUser(userId);
+        dailyCompletionRepository.rebuildForUser(userId);
+    }
+
+    // Users are deleted without touching the read model; their rows are cleared here
+    @Transactional
+    public void pruneDeletedUsers() {
+        dashboardStatsRepository.deleteOrphans();
+        dailyCompletionRepository.deleteOrphans();
+    }
+
+    private void apply(Long userId, long tasks, long completed, long projectTasks, long projectCompleted, long projects,
+                       LocalDate uncompletedDay, LocalDate completedDay) {
+        if (dashboardStatsRepository.addCounts(userId, tasks, completed, projectTasks, projectCompleted, projects) == 0) {
+            // No read model yet: build it from the source tables, which already include this write
+            rebuild(userId);
+            return;
+        }
+        if (uncompletedDay != null && uncompletedDay.equals(completedDay)) {
+            return;
+        }
+        if (uncompletedDay != null) {
+            dailyCompletionRepository.addCompleted(userId, uncompletedDay, -1);
+        }
+        if (completedDay != null) {
+            dailyCompletionRepository.addCompleted(userId, completedDay, 1);
+        }
+    }
+}
@@ -1,17 +1,21 @@
 package com.orbyq.backend.service;
 
+import com.orbyq.backend.config.CurrentUser;
 import com.orbyq.backend.dto.DocumentDTO;
 import com.orbyq.backend.model.Document;
-import com.orbyq.backend.model.User;
 import com.orbyq.backend.repository.DocumentRepository;
 import com.orbyq.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -24,67 +28,87 @@ public class DocumentService {
     @Autowired
     private UserRepository userRepository;
 
-    public List<DocumentDTO> getUserDocuments(String username) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    @Autowired
+    private ActivityRecorder activityRecorder;
 
-        List<Document> documents = documentRepository.findByUser(user);
+    @Transactional(readOnly = true)
+    public List<DocumentDTO> getUserDocuments(CurrentUser currentUser) {
+        List<DocumentRepository.DocumentView> documents = documentRepository.findViewsByUserId(currentUser.id());
         return documents.stream().map(doc -> {
             DocumentDTO dto = new DocumentDTO();
-            dto.setId(doc.getId().toString());
-            dto.setTitle(doc.getTitle());
-            dto.setContent(doc.getContent());
-            dto.setCreatedAt(doc.getCreatedAt());
-            dto.setUpdatedAt(doc.getUpdatedAt());
+            dto.setId(doc.id().toString());
+            dto.setTitle(doc.title());
+            dto.setContent(doc.content());
+            dto.setCreatedAt(doc.createdAt());
+            dto.setUpdatedAt(doc.updatedAt());
+            dto.setVersion(doc.version());
             return dto;
         }).collect(Collectors.toList());
     }
 
-    public Document createDocument(String username, DocumentDTO documentDTO) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    @Transactional(readOnly = true)
+    public String getContentHash(CurrentUser currentUser, String documentId) {
+        UUID id = UUID.fromString(documentId);
+        Optional<String> hash = documentRepository.findContentHashForOwner(id, currentUser.id());
+        OwnedWrites.requireAffected(hash.isPresent() ? 1 : 0, documentRepository, id, "Document not found", "Unauthorized to read this document");
+        return hash.get();
+    }
 
+    // Body and hash read in one statement, so the ETag sent always belongs to the body sent
+    @Transactional(readOnly = true)
+    public DocumentRepository.ContentView getContent(CurrentUser currentUser, String documentId) {
+        UUID id = UUID.fromString(documentId);
+        Optional<DocumentRepository.ContentView> content = documentRepository.findContentForOwner(id, currentUser.id());
+        OwnedWrites.requireAffected(content.isPresent() ? 1 : 0, documentRepository, id, "Document not found", "Unauthorized to read this document");
+        return content.get();
+    }
+
+    @Transactional
+    public DocumentDTO createDocument(CurrentUser currentUser, DocumentDTO documentDTO) {
         Document document = new Document();
-        document.setUser(user);
+        document.setUser(userRepository.getReferenceById(currentUser.id()));
         document.setTitle(documentDTO.getTitle());
         document.setContent(documentDTO.getContent());
+        document.setContentHash(contentHash(documentDTO.getContent()));
         document.setCreatedAt(LocalDate.now());
         document.setUpdatedAt(LocalDate.now());
         document.setVersion(0L);
 
-        return documentRepository.save(document);
+        Document saved = documentRepository.save(document);
+        activityRecorder.record(currentUser.id(), "Document created", "Created document \"" + documentDTO.getTitle() + "\"");
+        DocumentDTO dto = new DocumentDTO();
+        dto.setId(saved.getId().toString());
+        dto.setTitle(saved.getTitle());
+        dto.setContent(documentDTO.getContent());
+        dto.setCreatedAt(saved.getCreatedAt());
+        dto.setUpdatedAt(saved.getUpdatedAt());
+        dto.setVersion(saved.getVersion());
+        return dto;
     }
 
-    public void updateDocument(String username, String documentId, DocumentDTO documentDTO) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        Document document = documentRepository.findById(UUID.fromString(documentId))
-                .orElseThrow(() -> new IllegalArgumentException("Document not found"));
-
-        if (!document.getUser().getId().equals(user.getId())) {
-            throw new SecurityException("Unauthorized to update this document");
-        }
-
-        document.setTitle(documentDTO.getTitle());
-        document.setContent(documentDTO.getContent());
-        document.setUpdatedAt(LocalDate.now());
-
-        documentRepository.save(document);
+    @Transactional
+    public void updateDocument(CurrentUser currentUser, String documentId, DocumentDTO documentDTO) {
+        UUID id = UUID.fromString(documentId);
+        int updated = documentRepository.updateForOwner(id, currentUser.id(), documentDTO.getTitle(), documentDTO.getContent(),
+                contentHash(documentDTO.getContent()), LocalDate.now());
+        OwnedWrites.requireAffected(updated, documentRepository, id, "Document not found", "Unauthorized to update this document");
+        activityRecorder.record(currentUser.id(), "Document updated", "Updated document \"" + documentDTO.getTitle() + "\"");
     }
 
     @Transactional
-    public void deleteDocument(String username, String documentId) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        Document document = documentRepository.findById(UUID.fromString(documentId))
-                .orElseThrow(() -> new IllegalArgumentException("Document not found"));
+    public void deleteDocument(CurrentUser currentUser, String documentId) {
+        UUID id = UUID.fromString(documentId);
+        Optional<DocumentRepository.WrittenRow> deleted = documentRepository.deleteForOwner(id, currentUser.id());
+        OwnedWrites.requireAffected(deleted.isPresent() ? 1 : 0, documentRepository, id, "Document not found", "Unauthorized to delete this document");
+        activityRecorder.record(currentUser.id(), "Document deleted", "Deleted document \"" + deleted.get().getTitle() + "\"");
+    }
 
-        if (!document.getUser().getId().equals(user.getId())) {
-            throw new SecurityException("Unauthorized to delete this document");
+    private static String contentHash(String content) {
+        try {
+            byte[] bytes = (content != null ? content : "").getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
-
-        documentRepository.delete(document);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,235 @@
+package com.orbyq.backend.service;
+
+import com.orbyq.backend.repository.MoodBoardItemRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+// Makes the thumbnail and preview the mood board shows instead of the full-size upload. Runs on the bounded image
+// executor after the upload commits; an item whose derivatives are missing (an older row, or work dropped because
+// the queue was full) is queued again the next time the board is listed.
+@Service
+public class ImageDerivativeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageDerivativeService.class);
+
+    static final int THUMBNAIL_EDGE = 320;
+    static final int PREVIEW_EDGE = 1280;
+    private static final float JPEG_QUALITY = 0.85f;
+
+    @Autowired
+    private MoodBoardItemRepository moodBoardItemRepository;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("imageExecutor")
+    private ExecutorService imageExecutor;
+
+    // Items queued or in progress, so a board listed twice in a row doesn't queue the same work twice
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Encoded derivative bytes; null in Rendered means the original is small enough to stand in
+    record Encoded(byte[] bytes, String contentType) {
+    }
+
+    record Rendered(Integer width, Integer height, Encoded thumbnail, Encoded preview) {
+    }
+
+    // Safe to call from inside a service transaction: the work is only queued once the item is committed
+    public void generateAfterCommit(UUID itemId, String hash) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    generateLater(itemId, hash);
+                }
+            });
+        } else {
+            generateLater(itemId, hash);
+        }
+    }
+
+    public void generateLater(UUID itemId, String hash) {
+        if (!pending.add(itemId)) {
+            return;
+        }
+        try {
+            imageExecutor.execute(() -> {
+                try {
+                    generate(itemId, hash);
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Failed to generate derivatives for mood board item {}", itemId, e);
+                } finally {
+                    pending.remove(itemId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(itemId);
+            logger.debug("Image queue full; derivatives for mood board item {} wait for the next listing", itemId);
+        }
+    }
+
+    void generate(UUID itemId, String hash) throws IOException {
+        Path file = blobStore.path(hash);
+        if (!Files.isRegularFile(file)) {
+            logger.warn("Original for mood board item {} is missing from the blob store", itemId);
+            return;
+        }
+        Rendered rendered = renderOrKeep(itemId, file);
+        try (BlobStore.Staged thumbnail = stage(rendered.thumbnail());
+             BlobStore.Staged preview = stage(rendered.preview())) {
+            transactionTemplate.executeWithoutResult(status -> {
+                int saved = moodBoardItemRepository.saveDerivatives(itemId, BlobStore.reference(hash),
+                        BlobStore.reference(thumbnail != null ? thumbnail.hash() : hash),
+                        BlobStore.reference(preview != null ? preview.hash() : hash),
+                        rendered.width(), rendered.height());
+                // Deleted or already done meanwhile: the staged files go away on close and nothing is counted
+                if (saved == 0) {
+                    return;
+                }
+                acquire(thumbnail, hash);
+                acquire(preview, hash);
+            });
+        }
+    }
+
+    // An image ImageIO can't read (SVG, WebP, a truncated file) keeps its original for both, so it isn't retried
+    private Rendered renderOrKeep(UUID itemId, Path file) {
+        try {
+            return render(file);
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Could not decode the image for mood board item {}", itemId, e);
+            return new Rendered(null, null, null, null);
+        }
+    }
+
+    private BlobStore.Staged stage(Encoded encoded) {
+        return encoded != null ? blobStore.stage(encoded.bytes(), encoded.contentType()) : null;
+    }
+
+    private void acquire(BlobStore.Staged staged, String original) {
+        if (staged != null) {
+            blobStore.acquire(staged);
+        } else {
+            blobStore.acquire(original);
+        }
+    }
+
+    static Rendered render(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                return new Rendered(null, null, null, null);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int edge = Math.max(width, height);
+                if (edge <= THUMBNAIL_EDGE) {
+                    return new Rendered(width, height, null, null);
+                }
+                // Subsampling while decoding keeps a large photo from being expanded at full size only to be
+                // shrunk; what's decoded is still at least twice the preview size, enough for clean scaling
+                int step = Math.max(1, edge / (PREVIEW_EDGE * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage image = reader.read(0, param);
+
+                Encoded preview = edge > PREVIEW_EDGE ? encode(scale(image, PREVIEW_EDGE)) : null;
+                return new Rendered(width, height, encode(scale(image, THUMBNAIL_EDGE)), preview);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halves with bilinear filtering until the last step lands on the target size: close to area averaging in
+    // quality at a fraction of its cost
+    static BufferedImage scale(BufferedImage image, int maxEdge) {
+        double ratio = (double) maxEdge / Math.max(image.getWidth(), image.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    // JPEG unless the image has transparency to keep
+    static Encoded encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (image.getColorModel().hasAlpha()) {
+            ImageIO.write(image, "png", out);
+            return new Encoded(out.toByteArray(), "image/png");
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return new Encoded(out.toByteArray(), "image/jpeg");
+    }
+}
@@ -0,0 +1,80 @@
+package com.orbyq.backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Content type from an upload's leading bytes. The client's declared type is only used when the bytes aren't
+// recognised, and then only if it claims to be an image, since blobs are served back with that type.
+final class ImageTypes {
+
+    static final String FALLBACK = "application/octet-stream";
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] GIF87A = ascii("GIF87a");
+    private static final byte[] GIF89A = ascii("GIF89a");
+    private static final byte[] RIFF = ascii("RIFF");
+    private static final byte[] WEBP = ascii("WEBP");
+    private static final byte[] FTYP = ascii("ftyp");
+    private static final byte[] BMP = ascii("BM");
+    private static final byte[] TIFF_LE = {'I', 'I', '*', 0};
+    private static final byte[] TIFF_BE = {'M', 'M', 0, '*'};
+    private static final byte[] ICO = {0, 0, 1, 0};
+    private static final int SVG_PROLOGUE = 1024;
+
+    private ImageTypes() {
+    }
+
+    static String sniff(byte[] head, int length, String declared) {
+        if (startsWith(head, length, 0, PNG)) {
+            return "image/png";
+        }
+        if (startsWith(head, length, 0, JPEG)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, length, 0, GIF87A) || startsWith(head, length, 0, GIF89A)) {
+            return "image/gif";
+        }
+        if (startsWith(head, length, 0, RIFF) && startsWith(head, length, 8, WEBP)) {
+            return "image/webp";
+        }
+        if (startsWith(head, length, 4, FTYP)) {
+            String brand = length >= 12 ? new String(head, 8, 4, StandardCharsets.US_ASCII) : "";
+            switch (brand) {
+                case "avif", "avis" -> { return "image/avif"; }
+                case "heic", "heix", "mif1" -> { return "image/heic"; }
+                default -> { }
+            }
+        }
+        if (startsWith(head, length, 0, BMP)) {
+            return "image/bmp";
+        }
+        if (startsWith(head, length, 0, TIFF_LE) || startsWith(head, length, 0, TIFF_BE)) {
+            return "image/tiff";
+        }
+        if (startsWith(head, length, 0, ICO)) {
+            return "image/x-icon";
+        }
+        if (isSvg(head, length)) {
+            return "image/svg+xml";
+        }
+        return declared != null && declared.startsWith("image/") ? declared : FALLBACK;
+    }
+
+    // Markup that opens with an XML prologue, doctype or comment and gets to an <svg> element early on
+    private static boolean isSvg(byte[] head, int length) {
+        String text = new String(head, 0, Math.min(length, SVG_PROLOGUE), StandardCharsets.UTF_8).stripLeading();
+        if (text.startsWith("\uFEFF")) {
+            text = text.substring(1).stripLeading();
+        }
+        return text.startsWith("<") && text.contains("<svg");
+    }
+
+    private static boolean startsWith(byte[] head, int length, int offset, byte[] magic) {
+        return length >= offset + magic.length && Arrays.equals(head, offset, offset + magic.length, magic, 0, magic.length);
+    }
+
+    private static byte[] ascii(String magic) {
+        return magic.getBytes(StandardCharsets.US_ASCII);
+    }
+}
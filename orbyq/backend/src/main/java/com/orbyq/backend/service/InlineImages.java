@@ -0,0 +1,70 @@
+package com.orbyq.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Migration helper: moves base64 data URIs out of a text column into the blob store, leaving a counted
+// "blob:<hash>" reference in their place. Walks the rows in id order a batch at a time so only one batch is in memory.
+final class InlineImages {
+
+    private static final Logger logger = LoggerFactory.getLogger(InlineImages.class);
+
+    private static final Pattern DATA_URI = Pattern.compile("data:(image/[\\w.+-]+);base64,");
+    private static final int BATCH = 50;
+
+    private InlineImages() {
+    }
+
+    static int moveToBlobStore(JdbcTemplate jdbcTemplate, BlobFiles files, String table, String column, String condition)
+            throws IOException {
+        int moved = 0;
+        UUID after = new UUID(0, 0);
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT id, " + column + " AS content FROM " + table +
+                    " WHERE " + condition + " AND " + column + " LIKE 'data:image/%' AND id > ? ORDER BY id LIMIT ?", after, BATCH);
+            for (Map<String, Object> row : rows) {
+                after = (UUID) row.get("id");
+                String content = (String) row.get("content");
+                Matcher header = DATA_URI.matcher(content);
+                byte[] bytes;
+                try {
+                    bytes = header.lookingAt() ? Base64.getDecoder().decode(content.substring(header.end())) : null;
+                } catch (IllegalArgumentException e) {
+                    bytes = null;
+                }
+                if (bytes == null) {
+                    logger.warn("Leaving {} {} inline: content is not a base64 data URI", table, after);
+                    continue;
+                }
+
+                BlobStore.Staged staged = files.stage(new ByteArrayInputStream(bytes), header.group(1));
+                try {
+                    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                    jdbcTemplate.update("INSERT INTO blobs (hash, size, content_type, ref_count, created_at, updated_at) " +
+                                    "VALUES (?, ?, ?, 1, ?, ?) ON CONFLICT (hash) DO UPDATE SET ref_count = blobs.ref_count + 1",
+                            staged.hash(), staged.size(), staged.contentType(), now, now);
+                    files.commit(staged);
+                } finally {
+                    staged.close();
+                }
+                jdbcTemplate.update("UPDATE " + table + " SET " + column + " = ? WHERE id = ?", BlobStore.reference(staged.hash()), after);
+                moved++;
+            }
+            if (rows.size() < BATCH) {
+                return moved;
+            }
+        }
+    }
+}
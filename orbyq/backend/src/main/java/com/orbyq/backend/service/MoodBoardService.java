@@ -1,22 +1,20 @@
 package com.orbyq.backend.service;
 
+import com.orbyq.backend.config.CurrentUser;
 import com.orbyq.backend.dto.MoodBoardItemDTO;
 import com.orbyq.backend.model.MoodBoardItem;
-import com.orbyq.backend.model.User;
 import com.orbyq.backend.repository.MoodBoardItemRepository;
 import com.orbyq.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
 import java.time.LocalDate;
-import java.util.Base64;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class MoodBoardService {
@@ -27,48 +25,83 @@ public class MoodBoardService {
     @Autowired
     private UserRepository userRepository;
 
-    public List<MoodBoardItemDTO> getUserMoodBoardItems(String username) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    @Autowired
+    private ActivityRecorder activityRecorder;
+
+    @Autowired
+    private BlobStore blobStore;
 
-        List<MoodBoardItem> items = moodBoardItemRepository.findByUser(user);
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+
+    // The board renders thumbnails; the full image is only fetched from its URL when opened
+    @Transactional(readOnly = true)
+    public List<MoodBoardItemDTO> getUserMoodBoardItems(CurrentUser currentUser) {
+        List<MoodBoardItemRepository.ItemView> items = moodBoardItemRepository.findViewsByUserId(currentUser.id());
         return items.stream().map(item -> {
+            String hash = BlobStore.hashOf(item.imageUrl());
+            if (item.thumbnail() == null && hash != null) {
+                imageDerivativeService.generateLater(item.id(), hash);
+            }
             MoodBoardItemDTO dto = new MoodBoardItemDTO();
-            dto.setId(item.getId().toString());
-            dto.setImageUrl(item.getImageUrl());
-            dto.setCreatedAt(item.getCreatedAt());
+            dto.setId(item.id().toString());
+            dto.setImageUrl(BlobStore.toPublic(item.imageUrl()));
+            dto.setThumbnailUrl(BlobStore.toPublic(item.thumbnail()));
+            dto.setPreviewUrl(BlobStore.toPublic(item.preview()));
+            dto.setWidth(item.width());
+            dto.setHeight(item.height());
+            dto.setCreatedAt(item.createdAt());
+            dto.setVersion(item.version());
             return dto;
         }).collect(Collectors.toList());
     }
 
-    public MoodBoardItem createMoodBoardItem(String username, MultipartFile file) throws IOException {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    @Transactional
+    public MoodBoardItemDTO createMoodBoardItem(CurrentUser currentUser, BlobStore.Staged upload) {
+        return create(currentUser, blobStore.acquire(upload), upload.hash());
+    }
 
-        String base64Image = Base64.getEncoder().encodeToString(file.getBytes());
-        String imageUrl = "data:image/" + file.getOriginalFilename().substring(file.getOriginalFilename().lastIndexOf(".") + 1) + ";base64," + base64Image;
+    // An image already in the blob store, such as a committed resumable upload
+    @Transactional
+    public MoodBoardItemDTO createMoodBoardItem(CurrentUser currentUser, String imageUrl) {
+        String hash = BlobStore.hashOf(imageUrl);
+        if (hash == null) {
+            throw new IllegalArgumentException("Image URL must point at an uploaded blob");
+        }
+        blobStore.acquire(hash);
+        return create(currentUser, BlobStore.reference(hash), hash);
+    }
 
+    private MoodBoardItemDTO create(CurrentUser currentUser, String reference, String hash) {
         MoodBoardItem item = new MoodBoardItem();
-        item.setUser(user);
-        item.setImageUrl(imageUrl);
+        item.setUser(userRepository.getReferenceById(currentUser.id()));
+        item.setImageUrl(reference);
         item.setCreatedAt(LocalDate.now());
         item.setVersion(0L);
 
-        return moodBoardItemRepository.save(item);
+        MoodBoardItem saved = moodBoardItemRepository.save(item);
+        imageDerivativeService.generateAfterCommit(saved.getId(), hash);
+        activityRecorder.record(currentUser.id(), "Mood board image added", "Added an image to the mood board");
+        MoodBoardItemDTO dto = new MoodBoardItemDTO();
+        dto.setId(saved.getId().toString());
+        // Thumbnails are still being made; until the next load the client shows the original
+        dto.setImageUrl(BlobStore.toPublic(saved.getImageUrl()));
+        dto.setCreatedAt(saved.getCreatedAt());
+        dto.setVersion(saved.getVersion());
+        return dto;
     }
 
     @Transactional
-    public void deleteMoodBoardItem(String username, String itemId) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        MoodBoardItem item = moodBoardItemRepository.findById(UUID.fromString(itemId))
-                .orElseThrow(() -> new IllegalArgumentException("Mood board item not found"));
-
-        if (!item.getUser().getId().equals(user.getId())) {
-            throw new SecurityException("Unauthorized to delete this mood board item");
-        }
-
-        moodBoardItemRepository.delete(item);
+    public void deleteMoodBoardItem(CurrentUser currentUser, String itemId) {
+        UUID id = UUID.fromString(itemId);
+        Optional<MoodBoardItemRepository.StoredImages> deleted = moodBoardItemRepository.deleteForOwner(id, currentUser.id());
+        OwnedWrites.requireAffected(deleted.isPresent() ? 1 : 0, moodBoardItemRepository, id,
+                "Mood board item not found", "Unauthorized to delete this mood board item");
+        MoodBoardItemRepository.StoredImages images = deleted.get();
+        Stream.of(images.getImageUrl(), images.getThumbnail(), images.getPreview())
+                .map(BlobStore::hashOf)
+                .filter(hash -> hash != null)
+                .forEach(blobStore::release);
+        activityRecorder.record(currentUser.id(), "Mood board image removed", "Removed an image from the mood board");
     }
-}
\ No newline at end of file
+}
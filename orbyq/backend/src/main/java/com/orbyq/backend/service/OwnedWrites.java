@@ -0,0 +1,24 @@
+package com.orbyq.backend.service;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.UUID;
+
+// Owner-scoped UPDATE/DELETE statements only report a row count. When nothing matched, one existence
+// probe tells a missing row (404) apart from someone else's (403); the happy path never pays for it.
+final class OwnedWrites {
+
+    private OwnedWrites() {
+    }
+
+    static void requireAffected(int affected, JpaRepository<?, UUID> repository, UUID id, String notFound, String forbidden) {
+        if (affected > 0) {
+            return;
+        }
+        if (repository.existsById(id)) {
+            throw new SecurityException(forbidden);
+        }
+        throw new EntityNotFoundException(notFound);
+    }
+}
@@ -0,0 +1,79 @@
+package com.orbyq.backend.service;
+
+import com.orbyq.backend.config.AuthenticatedUser;
+import com.orbyq.backend.config.VerifiedToken;
+import com.orbyq.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Turns verified token claims into a principal without touching the database. The only per-user state
+// kept is the current security version; a token whose "sv" claim no longer matches is rejected.
+// invalidate() only reaches this instance, so a cached version is also re-read once it is older than the TTL
+// (every instance sees a revocation within that time) and whenever a token carries a newer one than cached.
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<Long, Entry> securityVersions = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation so a lookup that raced with one never caches the version it read
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public PrincipalCache(UserRepository userRepository,
+                          @Value("${jwt.principal-cache.max-entries:10000}") int maxEntries,
+                          @Value("${jwt.principal-cache.ttl:PT30S}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public Optional<AuthenticatedUser> resolve(VerifiedToken token) {
+        long now = System.nanoTime();
+        Entry entry = securityVersions.get(token.userId());
+        Long current = entry == null ? null : entry.version();
+        // A newer version than cached means another instance bumped it; an older one is rejected as it stands
+        if (entry == null || now - entry.loadedAt() >= ttlNanos || token.securityVersion() > entry.version()) {
+            long seen = invalidations.get();
+            current = userRepository.findSecurityVersionById(token.userId()).orElse(null);
+            if (current == null) {
+                securityVersions.remove(token.userId());
+                return Optional.empty();
+            }
+            if (invalidations.get() == seen) {
+                remember(token.userId(), new Entry(current, now));
+            }
+        }
+        if (current != token.securityVersion()) {
+            return Optional.empty();
+        }
+        return Optional.of(AuthenticatedUser.from(token));
+    }
+
+    // Call after the change is committed: password or role change, email change, account deletion
+    public void invalidate(Long userId) {
+        invalidations.incrementAndGet();
+        securityVersions.remove(userId);
+    }
+
+    private void remember(Long userId, Entry entry) {
+        if (securityVersions.size() >= maxEntries) {
+            Iterator<Long> it = securityVersions.keySet().iterator();
+            int toDrop = Math.max(1, maxEntries / 10);
+            while (toDrop-- > 0 && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        securityVersions.put(userId, entry);
+    }
+
+    private record Entry(long version, long loadedAt) {}
+}
@@ -1,19 +1,20 @@
 package com.orbyq.backend.service;
 
+import com.orbyq.backend.config.CurrentUser;
 import com.orbyq.backend.dto.TaskBoardDTO;
 import com.orbyq.backend.model.Task;
-import com.orbyq.backend.model.User;
 import com.orbyq.backend.repository.TaskRepository;
 import com.orbyq.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -26,24 +27,29 @@ public class TaskService {
     @Autowired
     private UserRepository userRepository;
 
-    public TaskBoardDTO getTaskBoard(String username) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+
+    @Autowired
+    private ActivityRecorder activityRecorder;
 
-        List<Task> tasks = taskRepository.findByUser(user);
+    @Transactional(readOnly = true)
+    public TaskBoardDTO getTaskBoard(CurrentUser currentUser) {
+        List<TaskRepository.BoardTask> tasks = taskRepository.findBoardTasks(currentUser.id());
         Map<String, TaskBoardDTO.TaskDTO> taskMap = new HashMap<>();
-        for (Task task : tasks) {
+        for (TaskRepository.BoardTask task : tasks) {
             TaskBoardDTO.TaskDTO taskDTO = new TaskBoardDTO.TaskDTO(
-                task.getId().toString(),
-                task.getTitle(),
-                task.getDescription(),
-                task.getPriority().toString().toLowerCase(),
-                task.getDueDate().toString(),
-                task.getStatus().toString(),
-                task.getComments(),
-                task.getAttachments()
+                task.id().toString(),
+                task.title(),
+                task.description(),
+                task.priority().toString().toLowerCase(),
+                task.dueDate().toString(),
+                task.status().toString(),
+                task.comments(),
+                task.attachments(),
+                task.version()
             );
-            taskMap.put(task.getId().toString(), taskDTO);
+            taskMap.put(task.id().toString(), taskDTO);
         }
 
         Map<String, TaskBoardDTO.ColumnDTO> columns = new HashMap<>();
@@ -51,8 +57,8 @@ public class TaskService {
 
         Map<Task.Status, List<String>> tasksByStatus = tasks.stream()
                 .collect(Collectors.groupingBy(
-                        Task::getStatus,
-                        Collectors.mapping(task -> task.getId().toString(), Collectors.toList())
+                        TaskRepository.BoardTask::status,
+                        Collectors.mapping(task -> task.id().toString(), Collectors.toList())
                 ));
 
         TaskBoardDTO.ColumnDTO todoColumn = new TaskBoardDTO.ColumnDTO(
@@ -90,12 +96,10 @@ public class TaskService {
         return taskBoard;
     }
 
-    public Task createTask(String username, String title, String description, String priority, LocalDate dueDate, String status) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
+    @Transactional
+    public TaskBoardDTO.TaskDTO createTask(CurrentUser currentUser, String title, String description, String priority, LocalDate dueDate, String status) {
         Task task = new Task();
-        task.setUser(user);
+        task.setUser(userRepository.getReferenceById(currentUser.id()));
         task.setTitle(title);
         task.setDescription(description);
         task.setPriority(Task.Priority.valueOf(priority.toUpperCase()));
@@ -108,70 +112,67 @@ public class TaskService {
         task.setAttachments(0);
         task.setVersion(0L);
 
-        return taskRepository.save(task);
+        Task saved = taskRepository.save(task);
+        dashboardStatsService.taskCreated(currentUser.id(), false);
+        activityRecorder.record(currentUser.id(), "Task created", "Created task \"" + title + "\"");
+        return new TaskBoardDTO.TaskDTO(
+            saved.getId().toString(),
+            saved.getTitle(),
+            saved.getDescription(),
+            saved.getPriority().toString().toLowerCase(),
+            saved.getDueDate().toString(),
+            saved.getStatus().toString(),
+            saved.getComments(),
+            saved.getAttachments(),
+            saved.getVersion()
+        );
     }
 
-    public void updateTask(String username, String taskId, String title, String description, String priority, LocalDate dueDate, String status) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        Task task = taskRepository.findById(UUID.fromString(taskId))
-                .orElseThrow(() -> new IllegalArgumentException("Task not found"));
-
-        if (!task.getUser().getId().equals(user.getId())) {
-            throw new SecurityException("Unauthorized to update this task");
-        }
-
-        task.setTitle(title);
-        task.setDescription(description);
-        task.setPriority(Task.Priority.valueOf(priority.toUpperCase()));
-        task.setDueDate(dueDate);
-        task.setStatus(Task.Status.valueOf(status));
-        // Update isCompleted and completedAt based on status
-        boolean isCompleted = status.equals("DONE");
-        task.setCompleted(isCompleted);
-        if (isCompleted && task.getCompletedAt() == null) {
-            task.setCompletedAt(LocalDate.now());
-        } else if (!isCompleted) {
-            task.setCompletedAt(null);
+    @Transactional
+    public void updateTask(CurrentUser currentUser, String taskId, String title, String description, String priority, LocalDate dueDate, String status) {
+        UUID id = UUID.fromString(taskId);
+        Task.Status newStatus = Task.Status.valueOf(status);
+        // completedAt is kept if the task was already done, set to today when it becomes done, cleared otherwise
+        Optional<TaskRepository.CompletionTransition> transition = taskRepository.updateForOwner(id, currentUser.id(), title, description,
+                Task.Priority.valueOf(priority.toUpperCase()).name(), dueDate, newStatus.name(), newStatus == Task.Status.DONE, LocalDate.now());
+        if (transition.isEmpty()) {
+            OwnedWrites.requireAffected(0, taskRepository, id, "Task not found", "Unauthorized to update this task");
         }
-        taskRepository.save(task);
+        dashboardStatsService.taskChanged(currentUser.id(), transition.get());
+        activityRecorder.record(currentUser.id(), "Task updated", "Updated task \"" + title + "\"");
     }
 
-    public void deleteTask(String username, String taskId) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        Task task = taskRepository.findById(UUID.fromString(taskId))
-                .orElseThrow(() -> new IllegalArgumentException("Task not found"));
-
-        if (!task.getUser().getId().equals(user.getId())) {
-            throw new SecurityException("Unauthorized to delete this task");
+    @Transactional
+    public void deleteTask(CurrentUser currentUser, String taskId) {
+        UUID id = UUID.fromString(taskId);
+        Optional<TaskRepository.CompletionTransition> deleted = taskRepository.deleteForOwner(id, currentUser.id());
+        if (deleted.isEmpty()) {
+            OwnedWrites.requireAffected(0, taskRepository, id, "Task not found", "Unauthorized to delete this task");
         }
-
-        taskRepository.delete(task);
+        dashboardStatsService.taskDeleted(currentUser.id(), deleted.get());
+        activityRecorder.record(currentUser.id(), "Task deleted", "Deleted task \"" + deleted.get().getTitle() + "\"");
     }
 
-    public void updateTaskStatus(String username, String taskId, String status) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        Task task = taskRepository.findById(UUID.fromString(taskId))
-                .orElseThrow(() -> new IllegalArgumentException("Task not found"));
-
-        if (!task.getUser().getId().equals(user.getId())) {
-            throw new SecurityException("Unauthorized to update this task");
+    @Transactional
+    public void updateTaskStatus(CurrentUser currentUser, String taskId, String status) {
+        UUID id = UUID.fromString(taskId);
+        Task.Status newStatus = Task.Status.valueOf(status);
+        Optional<TaskRepository.CompletionTransition> transition = taskRepository.updateStatusForOwner(id, currentUser.id(),
+                newStatus.name(), newStatus == Task.Status.DONE, LocalDate.now());
+        if (transition.isEmpty()) {
+            OwnedWrites.requireAffected(0, taskRepository, id, "Task not found", "Unauthorized to update this task");
         }
+        dashboardStatsService.taskChanged(currentUser.id(), transition.get());
+        activityRecorder.record(currentUser.id(), "Task status changed",
+                "Moved \"" + transition.get().getTitle() + "\" to " + statusLabel(newStatus));
+    }
 
-        task.setStatus(Task.Status.valueOf(status));
-        // Update isCompleted and completedAt based on status
-        boolean isCompleted = status.equals("DONE");
-        task.setCompleted(isCompleted);
-        if (isCompleted && task.getCompletedAt() == null) {
-            task.setCompletedAt(LocalDate.now());
-        } else if (!isCompleted) {
-            task.setCompletedAt(null);
-        }
-        taskRepository.save(task);
+    private static String statusLabel(Task.Status status) {
+        return switch (status) {
+            case TODO -> "To Do";
+            case IN_PROGRESS -> "In Progress";
+            case REVIEW -> "Review";
+            case DONE -> "Done";
+        };
     }
-}
\ No newline at end of file
+}
@@ -1,22 +1,29 @@
 package com.orbyq.backend.service;
 
+import com.orbyq.backend.config.CurrentUser;
 import com.orbyq.backend.dto.TimelineDTO;
 import com.orbyq.backend.model.Task;
 import com.orbyq.backend.model.Project;
-import com.orbyq.backend.model.User;
 import com.orbyq.backend.repository.TaskRepository;
 import com.orbyq.backend.repository.ProjectRepository;
 import com.orbyq.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,104 +38,127 @@ public class TimelineService {
     @Autowired
     private UserRepository userRepository;
 
-    public TimelineDTO getTimelineData(String username, String statusFilter, String priorityFilter) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
 
-        List<Project> projects = projectRepository.findByUser(user);
-        List<TimelineDTO.ProjectDTO> projectDTOs = new ArrayList<>();
+    @Autowired
+    private ActivityRecorder activityRecorder;
+
+    // from/to limit tasks to those whose [start, due] span overlaps the window; projectSize pages the projects.
+    // Both are optional, so callers that send neither get every project and task as before.
+    @Transactional(readOnly = true)
+    public TimelineDTO getTimelineData(CurrentUser currentUser, String statusFilter, String priorityFilter,
+                                       String fromDate, String toDate, int projectPage, Integer projectSize) {
+        Task.Status status = parseFilter(Task.Status.class, statusFilter, "status");
+        Task.Priority priority = parseFilter(Task.Priority.class, priorityFilter, "priority");
+        LocalDate from = parseDate(fromDate, "from");
+        LocalDate to = parseDate(toDate, "to");
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (projectPage < 0 || (projectSize != null && projectSize < 1)) {
+            throw new IllegalArgumentException("Invalid project page");
+        }
+        Long userId = currentUser.id();
+
+        // A fixed number of queries no matter how many projects: projects, windowed tasks, progress, milestones
+        Sort projectOrder = Sort.by("name", "id");
+        Page<Project> projects = projectRepository.findPageByUserId(userId, projectSize != null
+                ? PageRequest.of(projectPage, projectSize, projectOrder)
+                : Pageable.unpaged(projectOrder));
+        List<UUID> projectIds = projects.getContent().stream().map(Project::getId).toList();
+
+        Map<UUID, List<TimelineDTO.TaskDTO>> tasksByProject = new HashMap<>();
+        Map<UUID, Double> progressByProject = new HashMap<>();
+        if (!projectIds.isEmpty()) {
+            loadProjectTasks(userId, projectIds, from, to, status, priority, tasksByProject, progressByProject);
+        }
 
         String[] colors = {"bg-category-work", "bg-category-personal", "bg-category-learning", "bg-priority-high", "bg-priority-medium"};
-        int colorIndex = 0;
+        int colorIndex = projects.getPageable().isPaged() ? (int) projects.getPageable().getOffset() : 0;
 
+        List<TimelineDTO.ProjectDTO> projectDTOs = new ArrayList<>();
         Map<String, Double> projectProgress = new HashMap<>();
-
         for (Project project : projects) {
-            List<Task> tasks = taskRepository.findByProject(project);
-
-            if (statusFilter != null && !statusFilter.isEmpty()) {
-                tasks = tasks.stream()
-                    .filter(task -> task.getStatus().toString().equals(statusFilter))
-                    .collect(Collectors.toList());
-            }
-            if (priorityFilter != null && !priorityFilter.isEmpty()) {
-                tasks = tasks.stream()
-                    .filter(task -> task.getPriority().toString().equals(priorityFilter))
-                    .collect(Collectors.toList());
-            }
-
-            List<TimelineDTO.TaskDTO> taskDTOs = tasks.stream().map(task -> {
-                LocalDate startDay = task.getCreatedAt() != null ? task.getCreatedAt() : LocalDate.now();
-                LocalDate endDay = task.getDueDate() != null ? task.getDueDate() : startDay.plusDays(1);
-                long duration = ChronoUnit.DAYS.between(startDay, endDay);
-                if (duration < 1) duration = 1;
-
-                return new TimelineDTO.TaskDTO(
-                    task.getId().toString(),
-                    task.getTitle(),
-                    startDay.toString(),
-                    (int) duration,
-                    task.isCompleted()
-                );
-            }).collect(Collectors.toList());
-
-            long totalTasks = taskRepository.findByProject(project).size();
-            long completedTasks = taskRepository.findByProject(project).stream()
-                .filter(Task::isCompleted)
-                .count();
-            double progress = totalTasks > 0 ? (completedTasks * 100.0 / totalTasks) : 0.0;
-            projectProgress.put(project.getId().toString(), progress);
+            projectProgress.put(project.getId().toString(), progressByProject.getOrDefault(project.getId(), 0.0));
 
             String projectColor = project.getColor() != null ? project.getColor() : colors[colorIndex % colors.length];
             projectDTOs.add(new TimelineDTO.ProjectDTO(
                 project.getId().toString(),
                 project.getName(),
                 projectColor,
-                taskDTOs
+                tasksByProject.getOrDefault(project.getId(), new ArrayList<>())
             ));
             colorIndex++;
         }
 
         LocalDate today = LocalDate.now();
-        LocalDate endDate = today.plusDays(30);
-        List<Task> upcomingTasks = taskRepository.findByUserAndDueDateBetween(user, today, endDate);
-        if (statusFilter != null && !statusFilter.isEmpty()) {
-            upcomingTasks = upcomingTasks.stream()
-                .filter(task -> task.getStatus().toString().equals(statusFilter))
-                .collect(Collectors.toList());
-        }
-        if (priorityFilter != null && !priorityFilter.isEmpty()) {
-            upcomingTasks = upcomingTasks.stream()
-                .filter(task -> task.getPriority().toString().equals(priorityFilter))
-                .collect(Collectors.toList());
-        }
-
-        List<TimelineDTO.MilestoneDTO> milestones = upcomingTasks.stream()
-                .filter(task -> task.getProject() != null)
-                .map(task -> new TimelineDTO.MilestoneDTO(
-                    task.getTitle(),
-                    task.getProject().getName(),
-                    task.getDueDate().toString()
-                ))
-                .limit(5)
+        List<TimelineDTO.MilestoneDTO> milestones = taskRepository
+                .findMilestones(userId, today, today.plusDays(30), status, priority, Limit.of(5)).stream()
+                .map(m -> new TimelineDTO.MilestoneDTO(m.getTitle(), m.getProjectName(), m.getDueDate().toString()))
                 .collect(Collectors.toList());
 
         TimelineDTO timelineDTO = new TimelineDTO();
         timelineDTO.setProjects(projectDTOs);
         timelineDTO.setUpcomingMilestones(milestones);
         timelineDTO.setProjectProgress(projectProgress);
+        timelineDTO.setTotalProjects(projects.getTotalElements());
 
         return timelineDTO;
     }
 
-    public void addTask(String username, String title, String description, String priority, String projectId, String startDay, int duration) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    private void loadProjectTasks(Long userId, List<UUID> projectIds, LocalDate from, LocalDate to,
+                                  Task.Status status, Task.Priority priority,
+                                  Map<UUID, List<TimelineDTO.TaskDTO>> tasksByProject, Map<UUID, Double> progressByProject) {
+        for (TaskRepository.TimelineTask task : taskRepository.findTimelineTasks(userId, projectIds, from, to, status, priority)) {
+            LocalDate startDay = task.getCreatedAt() != null ? task.getCreatedAt() : LocalDate.now();
+            LocalDate endDay = task.getDueDate() != null ? task.getDueDate() : startDay.plusDays(1);
+            long duration = ChronoUnit.DAYS.between(startDay, endDay);
+            if (duration < 1) duration = 1;
+
+            tasksByProject.computeIfAbsent(task.getProjectId(), id -> new ArrayList<>()).add(new TimelineDTO.TaskDTO(
+                task.getId().toString(),
+                task.getTitle(),
+                startDay.toString(),
+                (int) duration,
+                task.getCompleted()
+            ));
+        }
+
+        // Progress ignores the filters and the window, as before
+        for (TaskRepository.ProjectProgress row : taskRepository.summarizeProjectProgress(userId, projectIds)) {
+            progressByProject.put(row.getProjectId(), row.getTotal() > 0 ? (row.getCompleted() * 100.0 / row.getTotal()) : 0.0);
+        }
+    }
+
+    private static LocalDate parseDate(String value, String name) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid " + name + " date: " + value);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseFilter(Class<E> type, String value, String name) {
+        if (value == null || value.isEmpty() || value.equalsIgnoreCase("all")) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
 
+    @Transactional
+    public void addTask(CurrentUser currentUser, String title, String description, String priority, String projectId, String startDay, int duration) {
         Project project = projectRepository.findById(java.util.UUID.fromString(projectId))
                 .orElseThrow(() -> new IllegalArgumentException("Project not found"));
 
-        if (!project.getUser().getId().equals(user.getId())) {
+        if (!project.getUser().getId().equals(currentUser.id())) {
             throw new SecurityException("Unauthorized to add task to this project");
         }
 
@@ -136,7 +166,7 @@ public class TimelineService {
         LocalDate dueDate = createdAt.plusDays(duration - 1);
 
         Task task = new Task();
-        task.setUser(user);
+        task.setUser(userRepository.getReferenceById(currentUser.id()));
         task.setProject(project);
         task.setTitle(title);
         task.setDescription(description != null ? description : "");
@@ -151,33 +181,34 @@ public class TimelineService {
         task.setVersion(0L);
 
         taskRepository.save(task);
+        dashboardStatsService.taskCreated(currentUser.id(), true);
+        activityRecorder.record(currentUser.id(), "Project task added", "Added \"" + title + "\" to " + project.getName());
     }
 
-    public void updateProjectColor(String username, String projectId, String color) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
+    @Transactional
+    public void updateProjectColor(CurrentUser currentUser, String projectId, String color) {
         Project project = projectRepository.findById(java.util.UUID.fromString(projectId))
                 .orElseThrow(() -> new IllegalArgumentException("Project not found"));
 
-        if (!project.getUser().getId().equals(user.getId())) {
+        if (!project.getUser().getId().equals(currentUser.id())) {
             throw new SecurityException("Unauthorized to update this project");
         }
 
         project.setColor(color);
         projectRepository.save(project);
+        activityRecorder.record(currentUser.id(), "Project updated", "Changed the color of " + project.getName());
     }
 
-    public void createProject(String username, String name, String color) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
+    @Transactional
+    public void createProject(CurrentUser currentUser, String name, String color) {
         Project project = new Project();
-        project.setUser(user);
+        project.setUser(userRepository.getReferenceById(currentUser.id()));
         project.setName(name);
         project.setColor(color != null ? color : "bg-category-work"); // Default color if none provided
         project.setVersion(0L);
 
         projectRepository.save(project);
+        dashboardStatsService.projectCreated(currentUser.id());
+        activityRecorder.record(currentUser.id(), "Project created", "Created project \"" + name + "\"");
     }
 }
\ No newline at end of file
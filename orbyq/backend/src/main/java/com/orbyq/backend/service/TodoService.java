@@ -1,113 +1,292 @@
 package com.orbyq.backend.service;
 
+import com.orbyq.backend.config.CurrentUser;
 import com.orbyq.backend.model.Todo;
-import com.orbyq.backend.model.User;
 import com.orbyq.backend.repository.TodoRepository;
 import com.orbyq.backend.repository.UserRepository;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 public class TodoService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int APPROXIMATE_COUNT_LIMIT = 1000;
+    private static final Set<String> NULLABLE_SORT_FIELDS = Set.of("title", "priority", "dueDate");
+
     @Autowired
     private TodoRepository todoRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ActivityRecorder activityRecorder;
+
+    @Transactional(readOnly = true)
     public PaginatedTodosDTO getTodos(
-            String username,
+            CurrentUser currentUser,
             int page,
             int size,
             String sortBy,
             String sortDirection,
             Boolean completed,
             String priority,
-            String category
+            String category,
+            boolean facets
     ) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        Sort sort = Sort.by(ascending(sortDirection) ? Sort.Direction.ASC : Sort.Direction.DESC, sortField(sortBy));
+        Pageable pageable = PageRequest.of(page, size, sort);
 
-        String normalizedPriority = priority != null ? priority.toLowerCase() : null;
-        String normalizedCategory = category != null ? category.toLowerCase() : null;
-        String normalizedSortBy = sortBy != null ? sortBy.toLowerCase() : "createdat";
-        String normalizedSortDirection = sortDirection != null && sortDirection.equalsIgnoreCase("asc") ? "asc" : "desc";
+        Page<TodoRepository.TodoRow> todoPage = todoRepository.findRows(filters(currentUser, completed, priority, category), pageable);
 
-        String sortField;
-        switch (normalizedSortBy) {
-            case "title":
-                sortField = "title";
+        List<TodoDTO> todos = todoPage.getContent().stream().map(TodoService::toDTO).collect(Collectors.toList());
+
+        PaginatedTodosDTO result = new PaginatedTodosDTO(todos, todoPage.getTotalPages(), todoPage.getTotalElements());
+        if (facets) {
+            result.setFacets(countFacets(currentUser, completed, priority, category));
+        }
+        return result;
+    }
+
+    // Cursor mode: each page seeks past the last row served instead of skipping an offset, so a deep page costs
+    // the same as the first. The total is only counted on request, exactly or capped at APPROXIMATE_COUNT_LIMIT.
+    @Transactional(readOnly = true)
+    public PaginatedTodosDTO getTodosAfter(
+            CurrentUser currentUser,
+            String cursor,
+            int size,
+            String sortBy,
+            String sortDirection,
+            Boolean completed,
+            String priority,
+            String category,
+            String count,
+            boolean facets
+    ) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        String countMode = count != null ? count.toLowerCase() : "none";
+        if (!countMode.equals("none") && !countMode.equals("approximate") && !countMode.equals("exact")) {
+            throw new IllegalArgumentException("count must be one of none, approximate, exact");
+        }
+        String sortField = sortField(sortBy);
+        boolean ascending = ascending(sortDirection);
+        Sort.Direction direction = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Specification<Todo> spec = filters(currentUser, completed, priority, category);
+
+        Cursor after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            after = Cursor.decode(cursor);
+            if (!after.sortField().equals(sortField) || after.ascending() != ascending) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort");
+            }
+        }
+
+        // PostgreSQL sorts nulls last ascending and first descending. A nullable key is read as two runs, the
+        // non-null keys and then the nulls (or the reverse), each a range scan on the sort index of its own.
+        List<Boolean> nullRuns = !NULLABLE_SORT_FIELDS.contains(sortField) ? List.of(false)
+                : ascending ? List.of(false, true) : List.of(true, false);
+        // One extra row tells us whether there is a next page
+        List<TodoRepository.TodoRow> rows = new ArrayList<>(size + 1);
+        boolean reached = after == null;
+        for (boolean nulls : nullRuns) {
+            if (!reached && nulls != (after.key() == null)) {
+                continue;
+            }
+            Specification<Todo> run = spec;
+            if (NULLABLE_SORT_FIELDS.contains(sortField)) {
+                run = run.and((root, query, cb) -> nulls ? cb.isNull(root.get(sortField)) : cb.isNotNull(root.get(sortField)));
+            }
+            if (!reached) {
+                run = run.and(seek(after));
+                reached = true;
+            }
+            Sort sort = nulls ? Sort.by(direction, "id") : Sort.by(direction, sortField, "id");
+            rows.addAll(todoRepository.findRows(run, sort, size + 1 - rows.size()));
+            if (rows.size() > size) {
                 break;
+            }
+        }
+
+        boolean hasMore = rows.size() > size;
+        List<TodoRepository.TodoRow> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            TodoRepository.TodoRow last = page.get(page.size() - 1);
+            nextCursor = new Cursor(sortField, ascending, sortKey(last, sortField), last.id()).encode();
+        }
+
+        Long totalElements = null;
+        boolean approximate = false;
+        if (countMode.equals("exact")) {
+            totalElements = todoRepository.count(spec);
+        } else if (countMode.equals("approximate")) {
+            long counted = todoRepository.countRows(spec, APPROXIMATE_COUNT_LIMIT + 1);
+            // Past the limit the total is reported as the limit, flagged as a lower bound
+            approximate = counted > APPROXIMATE_COUNT_LIMIT;
+            totalElements = Math.min(counted, APPROXIMATE_COUNT_LIMIT);
+        }
+
+        List<TodoDTO> todos = page.stream().map(TodoService::toDTO).collect(Collectors.toList());
+        PaginatedTodosDTO result = new PaginatedTodosDTO(todos, nextCursor, totalElements, approximate);
+        if (facets) {
+            result.setFacets(countFacets(currentUser, completed, priority, category));
+        }
+        return result;
+    }
+
+    // Every value is listed, zero when nothing matches, so the client can render all badges from one response
+    private TodoFacetsDTO countFacets(CurrentUser currentUser, Boolean completed, String priority, String category) {
+        Todo.Priority priorityEnum = parsePriority(priority);
+        Todo.Category categoryEnum = parseCategory(category);
+        TodoFacetsDTO facets = new TodoFacetsDTO();
+        for (Todo.Priority value : Todo.Priority.values()) {
+            facets.getPriority().put(value.toString().toLowerCase(), 0L);
+        }
+        for (Todo.Category value : Todo.Category.values()) {
+            facets.getCategory().put(value.toString().toLowerCase(), 0L);
+        }
+        facets.getCompleted().put("true", 0L);
+        facets.getCompleted().put("false", 0L);
+
+        for (TodoRepository.FacetCount row : todoRepository.countFacets(currentUser.id(), completed,
+                priorityEnum != null ? priorityEnum.name() : null, categoryEnum != null ? categoryEnum.name() : null)) {
+            switch (row.getFacet()) {
+                case "priority" -> facets.getPriority().put(row.getBucket().toLowerCase(), row.getCount());
+                case "category" -> facets.getCategory().put(row.getBucket().toLowerCase(), row.getCount());
+                case "completed" -> facets.getCompleted().put(row.getBucket(), row.getCount());
+                default -> facets.setTotal(row.getCount());
+            }
+        }
+        return facets;
+    }
+
+    private static String sortField(String sortBy) {
+        switch (sortBy != null ? sortBy.toLowerCase() : "createdat") {
+            case "title":
+                return "title";
             case "priority":
-                sortField = "priority";
-                break;
+                return "priority";
             case "duedate":
-                sortField = "dueDate";
-                break;
+                return "dueDate";
             case "createdat":
             default:
-                sortField = "createdAt";
+                return "createdAt";
         }
+    }
 
-        Sort sort = Sort.by(
-                normalizedSortDirection.equals("asc") ? Sort.Direction.ASC : Sort.Direction.DESC,
-                sortField
-        );
-        Pageable pageable = PageRequest.of(page, size, sort);
+    private static boolean ascending(String sortDirection) {
+        return sortDirection != null && sortDirection.equalsIgnoreCase("asc");
+    }
+
+    private static Specification<Todo> filters(CurrentUser currentUser, Boolean completed, String priority, String category) {
+        Todo.Priority priorityEnum = parsePriority(priority);
+        Todo.Category categoryEnum = parseCategory(category);
 
-        Specification<Todo> spec = Specification.where((root, query, cb) -> cb.equal(root.get("user"), user));
+        Specification<Todo> spec = Specification.where((root, query, cb) -> cb.equal(root.get("user").get("id"), currentUser.id()));
         if (completed != null) {
             spec = spec.and((root, query, cb) -> cb.equal(root.get("completed"), completed));
         }
-        if (normalizedPriority != null && !normalizedPriority.equals("all")) {
-            try {
-                Todo.Priority priorityEnum = Todo.Priority.valueOf(normalizedPriority.toUpperCase());
-                spec = spec.and((root, query, cb) -> cb.equal(root.get("priority"), priorityEnum));
-            } catch (IllegalArgumentException e) {
-                throw new IllegalArgumentException("Invalid priority: " + normalizedPriority);
-            }
+        if (priorityEnum != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("priority"), priorityEnum));
         }
-        if (normalizedCategory != null && !normalizedCategory.equals("all")) {
-            try {
-                Todo.Category categoryEnum = Todo.Category.valueOf(normalizedCategory.toUpperCase());
-                spec = spec.and((root, query, cb) -> cb.equal(root.get("category"), categoryEnum));
-            } catch (IllegalArgumentException e) {
-                throw new IllegalArgumentException("Invalid category: " + normalizedCategory);
-            }
+        if (categoryEnum != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("category"), categoryEnum));
         }
+        return spec;
+    }
 
-        Page<Todo> todoPage = todoRepository.findAll(spec, pageable);
+    // null and "all" mean no filter
+    private static Todo.Priority parsePriority(String priority) {
+        String normalizedPriority = priority != null ? priority.toLowerCase() : null;
+        if (normalizedPriority == null || normalizedPriority.equals("all")) {
+            return null;
+        }
+        try {
+            return Todo.Priority.valueOf(normalizedPriority.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid priority: " + normalizedPriority);
+        }
+    }
 
-        List<TodoDTO> todos = todoPage.getContent().stream().map(todo -> new TodoDTO(
-                todo.getId().toString(),
-                todo.getTitle(),
-                todo.isCompleted(),
-                todo.getPriority().toString().toLowerCase(),
-                todo.getDueDate() != null ? todo.getDueDate().toString() : "",
-                todo.getCategory().toString().toLowerCase()
-        )).collect(Collectors.toList());
+    private static Todo.Category parseCategory(String category) {
+        String normalizedCategory = category != null ? category.toLowerCase() : null;
+        if (normalizedCategory == null || normalizedCategory.equals("all")) {
+            return null;
+        }
+        try {
+            return Todo.Category.valueOf(normalizedCategory.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid category: " + normalizedCategory);
+        }
+    }
 
-        return new PaginatedTodosDTO(todos, todoPage.getTotalPages(), todoPage.getTotalElements());
+    // Rows strictly after the cursor in (key, id) order. "key >= v" bounds the index range; the rest only drops
+    // the rows at key = v that were already served. Within the null run the id alone orders the rows.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Specification<Todo> seek(Cursor after) {
+        return (root, query, cb) -> {
+            Path<UUID> id = root.get("id");
+            Predicate pastId = after.ascending() ? cb.greaterThan(id, after.id()) : cb.lessThan(id, after.id());
+            if (after.key() == null) {
+                return pastId;
+            }
+            Path<Comparable> key = root.get(after.sortField());
+            Comparable value = (Comparable) after.key();
+            return after.ascending()
+                    ? cb.and(cb.greaterThanOrEqualTo(key, value), cb.or(cb.greaterThan(key, value), pastId))
+                    : cb.and(cb.lessThanOrEqualTo(key, value), cb.or(cb.lessThan(key, value), pastId));
+        };
     }
 
-    public void addTodo(String username, String title, String priority, String dueDate, String category) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+    private static Object sortKey(TodoRepository.TodoRow row, String sortField) {
+        return switch (sortField) {
+            case "title" -> row.title();
+            case "priority" -> row.priority();
+            case "dueDate" -> row.dueDate();
+            default -> row.createdAt();
+        };
+    }
+
+    private static TodoDTO toDTO(TodoRepository.TodoRow todo) {
+        return new TodoDTO(
+                todo.id().toString(),
+                todo.title(),
+                todo.completed(),
+                todo.priority().toString().toLowerCase(),
+                todo.dueDate() != null ? todo.dueDate().toString() : "",
+                todo.category().toString().toLowerCase()
+        );
+    }
 
+    @Transactional
+    public void addTodo(CurrentUser currentUser, String title, String priority, String dueDate, String category) {
         Todo todo = new Todo();
-        todo.setUser(user);
+        todo.setUser(userRepository.getReferenceById(currentUser.id()));
         todo.setTitle(title);
         todo.setCompleted(false);
         try {
@@ -120,57 +299,42 @@ public class TodoService {
         todo.setVersion(0L);
 
         todoRepository.save(todo);
+        activityRecorder.record(currentUser.id(), "Todo added", "Added todo \"" + title + "\"");
     }
 
-    public void updateTodoCompletion(String username, String todoId, boolean completed) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
-
-        Todo todo = todoRepository.findById(UUID.fromString(todoId))
-                .orElseThrow(() -> new IllegalArgumentException("Todo not found: " + todoId));
-
-        if (!todo.getUser().getId().equals(user.getId())) {
-            throw new SecurityException("Unauthorized to update this todo");
-        }
-
-        todo.setCompleted(completed);
-        todoRepository.save(todo);
+    @Transactional
+    public void updateTodoCompletion(CurrentUser currentUser, String todoId, boolean completed) {
+        UUID id = UUID.fromString(todoId);
+        Optional<TodoRepository.WrittenRow> updated = todoRepository.updateCompletionForOwner(id, currentUser.id(), completed);
+        OwnedWrites.requireAffected(updated.isPresent() ? 1 : 0, todoRepository, id, "Todo not found: " + todoId, "Unauthorized to update this todo");
+        activityRecorder.record(currentUser.id(), completed ? "Todo completed" : "Todo reopened",
+                (completed ? "Completed todo \"" : "Reopened todo \"") + updated.get().getTitle() + "\"");
     }
 
-    public void updateTodo(String username, String todoId, String title, String priority, String dueDate, String category) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
-
-        Todo todo = todoRepository.findById(UUID.fromString(todoId))
-                .orElseThrow(() -> new IllegalArgumentException("Todo not found: " + todoId));
-
-        if (!todo.getUser().getId().equals(user.getId())) {
-            throw new SecurityException("Unauthorized to update this todo");
-        }
-
-        todo.setTitle(title);
+    @Transactional
+    public void updateTodo(CurrentUser currentUser, String todoId, String title, String priority, String dueDate, String category) {
+        UUID id = UUID.fromString(todoId);
+        Todo.Priority priorityEnum;
+        Todo.Category categoryEnum;
         try {
-            todo.setPriority(Todo.Priority.valueOf(priority.toUpperCase()));
-            todo.setCategory(Todo.Category.valueOf(category.toUpperCase()));
+            priorityEnum = Todo.Priority.valueOf(priority.toUpperCase());
+            categoryEnum = Todo.Category.valueOf(category.toUpperCase());
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Invalid priority or category: " + e.getMessage());
         }
-        todo.setDueDate(dueDate != null && !dueDate.isEmpty() ? LocalDate.parse(dueDate) : null);
-        todoRepository.save(todo);
-    }
-
-    public void deleteTodo(String username, String todoId) {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        LocalDate due = dueDate != null && !dueDate.isEmpty() ? LocalDate.parse(dueDate) : null;
 
-        Todo todo = todoRepository.findById(UUID.fromString(todoId))
-                .orElseThrow(() -> new IllegalArgumentException("Todo not found: " + todoId));
-
-        if (!todo.getUser().getId().equals(user.getId())) {
-            throw new SecurityException("Unauthorized to delete this todo");
-        }
+        int updated = todoRepository.updateForOwner(id, currentUser.id(), title, priorityEnum, categoryEnum, due);
+        OwnedWrites.requireAffected(updated, todoRepository, id, "Todo not found: " + todoId, "Unauthorized to update this todo");
+        activityRecorder.record(currentUser.id(), "Todo updated", "Updated todo \"" + title + "\"");
+    }
 
-        todoRepository.delete(todo);
+    @Transactional
+    public void deleteTodo(CurrentUser currentUser, String todoId) {
+        UUID id = UUID.fromString(todoId);
+        Optional<TodoRepository.WrittenRow> deleted = todoRepository.deleteForOwner(id, currentUser.id());
+        OwnedWrites.requireAffected(deleted.isPresent() ? 1 : 0, todoRepository, id, "Todo not found: " + todoId, "Unauthorized to delete this todo");
+        activityRecorder.record(currentUser.id(), "Todo deleted", "Deleted todo \"" + deleted.get().getTitle() + "\"");
     }
 
     public static class TodoDTO {
@@ -200,8 +364,11 @@ public class TodoService {
 
     public static class PaginatedTodosDTO {
         private List<TodoDTO> todos;
-        private int totalPages;
-        private long totalElements;
+        private Integer totalPages;
+        private Long totalElements;
+        private String nextCursor;
+        private boolean totalApproximate;
+        private TodoFacetsDTO facets;
 
         public PaginatedTodosDTO(List<TodoDTO> todos, int totalPages, long totalElements) {
             this.todos = todos;
@@ -209,8 +376,76 @@ public class TodoService {
             this.totalElements = totalElements;
         }
 
+        // Cursor mode: no page numbers, and the total is null unless it was asked for
+        public PaginatedTodosDTO(List<TodoDTO> todos, String nextCursor, Long totalElements, boolean totalApproximate) {
+            this.todos = todos;
+            this.nextCursor = nextCursor;
+            this.totalElements = totalElements;
+            this.totalApproximate = totalApproximate;
+        }
+
         public List<TodoDTO> getTodos() { return todos; }
-        public int getTotalPages() { return totalPages; }
-        public long getTotalElements() { return totalElements; }
+        public Integer getTotalPages() { return totalPages; }
+        public Long getTotalElements() { return totalElements; }
+        public String getNextCursor() { return nextCursor; }
+        public boolean isTotalApproximate() { return totalApproximate; }
+        public TodoFacetsDTO getFacets() { return facets; }
+        public void setFacets(TodoFacetsDTO facets) { this.facets = facets; }
+    }
+
+    // Counts per filter value, each under the other active filters; total applies them all
+    public static class TodoFacetsDTO {
+        private Map<String, Long> priority = new LinkedHashMap<>();
+        private Map<String, Long> category = new LinkedHashMap<>();
+        private Map<String, Long> completed = new LinkedHashMap<>();
+        private long total;
+
+        public Map<String, Long> getPriority() { return priority; }
+        public Map<String, Long> getCategory() { return category; }
+        public Map<String, Long> getCompleted() { return completed; }
+        public long getTotal() { return total; }
+        public void setTotal(long total) { this.total = total; }
+    }
+
+    // Position of the last row served in cursor mode: the sort it belongs to, that row's sort key and its id.
+    // The key goes after '-' when null and '=' otherwise; the id is last, so a title containing '|' still parses.
+    record Cursor(String sortField, boolean ascending, Object key, UUID id) {
+
+        String encode() {
+            String raw = sortField + "|" + (ascending ? "asc" : "desc") + "|" + (key == null ? "-" : "=" + key) + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                int first = raw.indexOf('|');
+                int second = raw.indexOf('|', first + 1);
+                int last = raw.lastIndexOf('|');
+                if (first < 0 || second < 0 || last <= second) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+                String sortField = raw.substring(0, first);
+                String direction = raw.substring(first + 1, second);
+                String key = raw.substring(second + 1, last);
+                if (!direction.equals("asc") && !direction.equals("desc") || !key.equals("-") && !key.startsWith("=")) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+                return new Cursor(sortField, direction.equals("asc"),
+                        key.equals("-") ? null : parseKey(sortField, key.substring(1)), UUID.fromString(raw.substring(last + 1)));
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        private static Object parseKey(String sortField, String key) {
+            return switch (sortField) {
+                case "title" -> key;
+                case "priority" -> Todo.Priority.valueOf(key);
+                case "dueDate" -> LocalDate.parse(key);
+                case "createdAt" -> LocalDateTime.parse(key);
+                default -> throw new IllegalArgumentException("Invalid cursor");
+            };
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,138 @@
+package com.orbyq.backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// On-disk chunks of resumable uploads: <root>/<session id>/<chunk index>. A chunk is written under a temporary
+// name and only moved into place once its length and checksum are right, so a chunk file that exists is complete.
+class UploadChunks {
+
+    private final Path root;
+
+    UploadChunks(Path root) {
+        this.root = root;
+    }
+
+    // Reads at most one byte past the expected length, so an oversized body is caught without being drained
+    void write(UUID session, int index, InputStream in, long length, byte[] expectedDigest) throws IOException {
+        Path directory = directory(session);
+        Files.createDirectories(directory);
+        Path part = Files.createTempFile(directory, index + "-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            byte[] buffer = new byte[BlobFiles.CHUNK_SIZE];
+            long written = 0;
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(part), digest)) {
+                int read;
+                while (written <= length && (read = in.read(buffer, 0, (int) Math.min(buffer.length, length + 1 - written))) > 0) {
+                    out.write(buffer, 0, read);
+                    written += read;
+                }
+            }
+            if (written != length) {
+                throw new IllegalArgumentException("Chunk " + index + " must be " + length + " bytes");
+            }
+            if (!MessageDigest.isEqual(digest.digest(), expectedDigest)) {
+                throw new IllegalArgumentException("Chunk " + index + " does not match its checksum");
+            }
+            // A resent chunk replaces the first copy; both passed the same checksum
+            Files.move(part, chunk(session, index), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+    }
+
+    BitSet received(UUID session, int chunkCount) throws IOException {
+        BitSet received = new BitSet(chunkCount);
+        Path directory = directory(session);
+        if (!Files.isDirectory(directory)) {
+            return received;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.chars().allMatch(Character::isDigit) && name.length() < 10) {
+                    int index = Integer.parseInt(name);
+                    if (index < chunkCount) {
+                        received.set(index);
+                    }
+                }
+            }
+        }
+        return received;
+    }
+
+    List<Path> chunks(UUID session, int chunkCount) {
+        List<Path> chunks = new ArrayList<>(chunkCount);
+        for (int index = 0; index < chunkCount; index++) {
+            chunks.add(chunk(session, index));
+        }
+        return chunks;
+    }
+
+    void delete(UUID session) throws IOException {
+        Path directory = directory(session);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    // Session directories not touched since before the cutoff; a chunk racing the end of its session can leave one
+    List<UUID> idleSessions(Instant before) throws IOException {
+        List<UUID> sessions = new ArrayList<>();
+        if (!Files.isDirectory(root)) {
+            return sessions;
+        }
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path directory : directories) {
+                UUID session;
+                try {
+                    session = UUID.fromString(directory.getFileName().toString());
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                if (Files.getLastModifiedTime(directory).compareTo(FileTime.from(before)) < 0) {
+                    sessions.add(session);
+                }
+            }
+        }
+        return sessions;
+    }
+
+    private Path directory(UUID session) {
+        return root.resolve(session.toString());
+    }
+
+    private Path chunk(UUID session, int index) {
+        return directory(session).resolve(Integer.toString(index));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.orbyq.backend.service;
+
+import com.orbyq.backend.config.CurrentUser;
+import com.orbyq.backend.dto.UploadSessionDTO;
+import com.orbyq.backend.model.UploadSession;
+import com.orbyq.backend.repository.UploadSessionRepository;
+import com.orbyq.backend.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Resumable uploads: a client opens a session for a known size, PUTs fixed-size chunks in any order and as often as
+// it needs to, asks which byte ranges arrived, and commits. Committing joins the chunks into a blob and returns its
+// URL, which the client then puts on a canvas or mood board item the same way as any blob URL.
+@Service
+public class UploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadService.class);
+
+    // RFC 9530 Content-Digest, e.g. "sha-256=:X48E9qOokqqrvdts8nOJRJN3OWDUoyWxBf7kbu9DBPE=:"
+    private static final Pattern CONTENT_DIGEST = Pattern.compile("(?:^|,)\\s*sha-256=:([A-Za-z0-9+/]+=*):");
+    private static final int SWEEP_BATCH = 100;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${uploads.dir:data/uploads}")
+    private String directory;
+
+    @Value("${uploads.max-size:200MB}")
+    private DataSize maxSize;
+
+    @Value("${uploads.chunk-size:4MB}")
+    private DataSize chunkSize;
+
+    @Value("${uploads.session-ttl:PT24H}")
+    private Duration sessionTtl;
+
+    private UploadChunks chunks;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        chunks = new UploadChunks(Path.of(directory));
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Transactional
+    public UploadSessionDTO createSession(CurrentUser currentUser, long size, String contentType) {
+        if (size <= 0 || size > maxSize.toBytes()) {
+            throw new IllegalArgumentException("Upload size must be between 1 and " + maxSize.toBytes() + " bytes");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        UploadSession session = new UploadSession();
+        session.setUser(userRepository.getReferenceById(currentUser.id()));
+        session.setSize(size);
+        session.setChunkSize((int) chunkSize.toBytes());
+        session.setContentType(contentType);
+        session.setCreatedAt(now);
+        session.setExpiresAt(now.plus(sessionTtl));
+        return toDTO(uploadSessionRepository.save(session), new BitSet());
+    }
+
+    @Transactional(readOnly = true)
+    public UploadSessionDTO getSession(CurrentUser currentUser, String sessionId) throws IOException {
+        UploadSession session = live(currentUser, UUID.fromString(sessionId));
+        return toDTO(session, chunks.received(session.getId(), session.getChunkCount()));
+    }
+
+    // Not transactional on purpose: a chunk can take a while to arrive and shouldn't hold a connection meanwhile
+    public UploadSessionDTO putChunk(CurrentUser currentUser, String sessionId, int index, InputStream body,
+                                     String contentDigest) throws IOException {
+        UploadSession session = live(currentUser, UUID.fromString(sessionId));
+        if (index < 0 || index >= session.getChunkCount()) {
+            throw new IllegalArgumentException("Chunk index must be between 0 and " + (session.getChunkCount() - 1));
+        }
+        Matcher digest = contentDigest != null ? CONTENT_DIGEST.matcher(contentDigest) : null;
+        if (digest == null || !digest.find()) {
+            throw new IllegalArgumentException("Chunk needs a Content-Digest header with its sha-256");
+        }
+        chunks.write(session.getId(), index, body, session.getChunkLength(index), Base64.getDecoder().decode(digest.group(1)));
+
+        LocalDateTime expiresAt = LocalDateTime.now().plus(sessionTtl);
+        transactionTemplate.executeWithoutResult(status -> uploadSessionRepository.extend(session.getId(), expiresAt));
+        session.setExpiresAt(expiresAt);
+        return toDTO(session, chunks.received(session.getId(), session.getChunkCount()));
+    }
+
+    public UploadSessionDTO commit(CurrentUser currentUser, String sessionId) throws IOException {
+        UploadSession session = live(currentUser, UUID.fromString(sessionId));
+        BitSet received = chunks.received(session.getId(), session.getChunkCount());
+        if (received.cardinality() < session.getChunkCount()) {
+            throw new IllegalArgumentException("Upload is missing " + (session.getChunkCount() - received.cardinality()) + " chunk(s)");
+        }
+
+        String hash;
+        try (BlobStore.Staged staged = blobStore.assemble(chunks.chunks(session.getId(), session.getChunkCount()), session.getContentType())) {
+            hash = blobStore.publish(staged);
+        }
+        transactionTemplate.executeWithoutResult(status -> uploadSessionRepository.deleteForOwner(session.getId(), currentUser.id()));
+        chunks.delete(session.getId());
+
+        UploadSessionDTO dto = toDTO(session, received);
+        dto.setUrl(BlobStore.toPublic(BlobStore.reference(hash)));
+        return dto;
+    }
+
+    @Transactional
+    public void abort(CurrentUser currentUser, String sessionId) throws IOException {
+        UUID id = UUID.fromString(sessionId);
+        OwnedWrites.requireAffected(uploadSessionRepository.deleteForOwner(id, currentUser.id()), uploadSessionRepository, id,
+                "Upload not found", "Unauthorized to access this upload");
+        chunks.delete(id);
+    }
+
+    @Scheduled(initialDelayString = "${uploads.sweep-interval:3600000}", fixedDelayString = "${uploads.sweep-interval:3600000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        int swept = 0;
+        while (true) {
+            List<UUID> expired = uploadSessionRepository.findExpired(now, SWEEP_BATCH);
+            for (UUID id : expired) {
+                try {
+                    Integer deleted = transactionTemplate.execute(status -> uploadSessionRepository.deleteExpired(id, now));
+                    if (deleted != null && deleted > 0) {
+                        chunks.delete(id);
+                        swept++;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Failed to sweep upload {}", id, e);
+                }
+            }
+            if (expired.size() < SWEEP_BATCH) {
+                break;
+            }
+        }
+        // Chunk directories whose session is gone, left by a chunk that landed as its session ended
+        try {
+            for (UUID id : chunks.idleSessions(now.minus(sessionTtl).atZone(ZoneId.systemDefault()).toInstant())) {
+                if (!uploadSessionRepository.existsById(id)) {
+                    chunks.delete(id);
+                    swept++;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to sweep idle upload directories", e);
+        }
+        if (swept > 0) {
+            logger.info("Swept {} expired upload(s)", swept);
+        }
+    }
+
+    private UploadSession live(CurrentUser currentUser, UUID id) {
+        UploadSession session = uploadSessionRepository.findById(id)
+                .filter(found -> found.getExpiresAt().isAfter(LocalDateTime.now()))
+                .orElseThrow(() -> new EntityNotFoundException("Upload not found"));
+        if (!session.getUser().getId().equals(currentUser.id())) {
+            throw new SecurityException("Unauthorized to access this upload");
+        }
+        return session;
+    }
+
+    private static UploadSessionDTO toDTO(UploadSession session, BitSet received) {
+        List<UploadSessionDTO.Range> ranges = new ArrayList<>();
+        for (int start = received.nextSetBit(0); start >= 0; start = received.nextSetBit(start)) {
+            int end = received.nextClearBit(start);
+            ranges.add(new UploadSessionDTO.Range((long) start * session.getChunkSize(),
+                    Math.min((long) end * session.getChunkSize(), session.getSize())));
+            start = end;
+        }
+        UploadSessionDTO dto = new UploadSessionDTO();
+        dto.setId(session.getId().toString());
+        dto.setSize(session.getSize());
+        dto.setContentType(session.getContentType());
+        dto.setChunkSize(session.getChunkSize());
+        dto.setChunkCount(session.getChunkCount());
+        dto.setReceived(ranges);
+        dto.setExpiresAt(session.getExpiresAt());
+        return dto;
+    }
+}
@@ -0,0 +1,5 @@
+-- SHA-256 of each document body, kept up to date on write, so the content endpoint can answer a conditional
+-- request from this column without reading the body.
+ALTER TABLE documents ADD COLUMN content_hash varchar(64);
+
+UPDATE documents SET content_hash = encode(sha256(convert_to(coalesce(content, ''), 'UTF8')), 'hex');
@@ -0,0 +1,3 @@
+-- Carried in every token as "sv". Bumped when the email (the token subject) changes, which retires tokens issued
+-- under the old one. Deleting an account needs no bump: with the row gone its tokens no longer resolve.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS security_version bigint DEFAULT 0 NOT NULL;
@@ -0,0 +1,20 @@
+-- Incrementally maintained dashboard counters. Rows are created lazily: a user without one gets it rebuilt
+-- from the source tables on the first dashboard read or task write, so nothing is backfilled here.
+CREATE TABLE IF NOT EXISTS dashboard_stats (
+    user_id bigint NOT NULL,
+    task_count bigint NOT NULL,
+    completed_count bigint NOT NULL,
+    project_task_count bigint NOT NULL,
+    project_completed_count bigint NOT NULL,
+    project_count bigint NOT NULL,
+    idea_count bigint NOT NULL,
+    PRIMARY KEY (user_id)
+);
+
+-- Keyed owner first: every read is one user's range of days
+CREATE TABLE IF NOT EXISTS dashboard_daily_completions (
+    user_id bigint NOT NULL,
+    day date NOT NULL,
+    completed bigint NOT NULL,
+    PRIMARY KEY (user_id, day)
+);
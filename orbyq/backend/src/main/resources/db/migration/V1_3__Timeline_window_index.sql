@@ -0,0 +1,2 @@
+-- Timeline window: equality on the owner, range on due_date, then created_at checked from the index
+CREATE INDEX IF NOT EXISTS idx_tasks_user_due_created ON tasks (user_id, due_date, created_at);
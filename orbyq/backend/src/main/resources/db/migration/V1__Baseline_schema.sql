@@ -0,0 +1,134 @@
+-- Schema as Hibernate generated it for the last ddl-auto=update release, unchanged. Existing databases are
+-- baselined at this version (spring.flyway.baseline-on-migrate), so this only ever runs against an empty
+-- database; anything added since goes in a later version, which both kinds of database then apply.
+
+CREATE TABLE users (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    bio varchar(200),
+    email varchar(255) NOT NULL,
+    name varchar(255) NOT NULL,
+    password varchar(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk6dotkott2kjsp8vw4d0m25fb7 UNIQUE (email)
+);
+
+CREATE TABLE user_roles (
+    user_id bigint NOT NULL,
+    role varchar(255)
+);
+
+CREATE TABLE projects (
+    user_id bigint NOT NULL,
+    version bigint NOT NULL,
+    id uuid NOT NULL,
+    color varchar(255),
+    name varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE tasks (
+    attachments integer NOT NULL,
+    comments integer NOT NULL,
+    completed boolean NOT NULL,
+    completed_at date,
+    created_at date,
+    due_date date,
+    user_id bigint NOT NULL,
+    version bigint NOT NULL,
+    id uuid NOT NULL,
+    project_id uuid,
+    description varchar(255),
+    priority varchar(255) CHECK (priority IN ('LOW', 'MEDIUM', 'HIGH')),
+    status varchar(255) CHECK (status IN ('TODO', 'IN_PROGRESS', 'REVIEW', 'DONE')),
+    title varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE todo (
+    completed boolean NOT NULL,
+    due_date date,
+    created_at timestamp(6) NOT NULL,
+    user_id bigint NOT NULL,
+    version bigint,
+    id uuid NOT NULL,
+    category varchar(255) CHECK (category IN ('WORK', 'PERSONAL', 'LEARNING')),
+    priority varchar(255) CHECK (priority IN ('LOW', 'MEDIUM', 'HIGH')),
+    title varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE ideas (
+    created_at timestamp(6),
+    user_id bigint NOT NULL,
+    id uuid NOT NULL,
+    content varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE documents (
+    created_at date,
+    updated_at date,
+    user_id bigint NOT NULL,
+    version bigint NOT NULL,
+    id uuid NOT NULL,
+    content text,
+    title varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE canvases (
+    created_at date,
+    user_id bigint NOT NULL,
+    version bigint NOT NULL,
+    id uuid NOT NULL,
+    title varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE canvas_items (
+    created_at date,
+    height float(53) NOT NULL,
+    width float(53) NOT NULL,
+    x float(53) NOT NULL,
+    y float(53) NOT NULL,
+    user_id bigint NOT NULL,
+    version bigint NOT NULL,
+    canvas_id uuid NOT NULL,
+    id uuid NOT NULL,
+    content text,
+    style_json text,
+    type varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE mood_board_items (
+    created_at date,
+    user_id bigint NOT NULL,
+    version bigint NOT NULL,
+    id uuid NOT NULL,
+    image_url text,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE activity_logs (
+    created_at timestamp(6),
+    user_id bigint NOT NULL,
+    id uuid NOT NULL,
+    action varchar(255),
+    details varchar(255),
+    PRIMARY KEY (id)
+);
+
+-- Hibernate's generated constraint names, so fresh and baselined databases agree
+ALTER TABLE user_roles ADD CONSTRAINT FKhfh9dx7w3ubf1co1vdev94g3f FOREIGN KEY (user_id) REFERENCES users;
+ALTER TABLE projects ADD CONSTRAINT FKhswfwa3ga88vxv1pmboss6jhm FOREIGN KEY (user_id) REFERENCES users;
+ALTER TABLE tasks ADD CONSTRAINT FK6s1ob9k4ihi75xbxe2w0ylsdh FOREIGN KEY (user_id) REFERENCES users;
+ALTER TABLE tasks ADD CONSTRAINT FKsfhn82y57i3k9uxww1s007acc FOREIGN KEY (project_id) REFERENCES projects;
+ALTER TABLE todo ADD CONSTRAINT FKdcopxq1yu1u8ijb7rjexhsr6v FOREIGN KEY (user_id) REFERENCES users;
+ALTER TABLE ideas ADD CONSTRAINT FKt4qp1368gdn4wk6ih62bj80ym FOREIGN KEY (user_id) REFERENCES users;
+ALTER TABLE documents ADD CONSTRAINT FKkxttj4tp5le2uth212lu49vny FOREIGN KEY (user_id) REFERENCES users;
+ALTER TABLE canvases ADD CONSTRAINT FKh96d75iffjfhumq5e2apjcse4 FOREIGN KEY (user_id) REFERENCES users;
+ALTER TABLE canvas_items ADD CONSTRAINT FKrgh88b4a57we2jhvp5146gs1a FOREIGN KEY (canvas_id) REFERENCES canvases;
+ALTER TABLE canvas_items ADD CONSTRAINT FKfe05pq8mkoxxwqhe7vi3kgj1v FOREIGN KEY (user_id) REFERENCES users;
+ALTER TABLE mood_board_items ADD CONSTRAINT FKi6mbvcval849eg0m5bp8rcgt3 FOREIGN KEY (user_id) REFERENCES users;
+ALTER TABLE activity_logs ADD CONSTRAINT FK5bm1lt4f4eevt8lv2517soakd FOREIGN KEY (user_id) REFERENCES users;
@@ -0,0 +1,32 @@
+-- One index per repository access path. Nearly every read is scoped to the signed-in user, so user_id leads;
+-- the trailing columns follow each query's filters and sort. QueryPlanTests checks that no captured query
+-- falls back to a sequential scan.
+
+-- Activity feed: covering, so keyset pages are index-only scans; the partial one serves the dashboard's
+-- project feed. Created on the partitioned parent, so every monthly partition gets them too.
+CREATE INDEX IF NOT EXISTS idx_activity_logs_user_created
+    ON activity_logs (user_id, created_at DESC, id DESC) INCLUDE (action, details);
+CREATE INDEX IF NOT EXISTS idx_activity_logs_user_project
+    ON activity_logs (user_id, created_at DESC, id DESC) INCLUDE (action, details)
+    WHERE action LIKE 'Project%';
+
+-- Todo list: the filter columns in TodoService's Specification, then the default sort. The plain
+-- (user_id, created_at) index serves the unfiltered default page without a sort step.
+CREATE INDEX IF NOT EXISTS idx_todo_user_filters ON todo (user_id, completed, priority, category, created_at);
+CREATE INDEX IF NOT EXISTS idx_todo_user_created ON todo (user_id, created_at);
+
+-- tasks (user_id, due_date, created_at) already exists from V1_3 and covers board, upcoming, milestones and timeline
+CREATE INDEX IF NOT EXISTS idx_tasks_project ON tasks (project_id);
+-- Dashboard drift check: recent completions across all users
+CREATE INDEX IF NOT EXISTS idx_tasks_completed_at ON tasks (completed_at, user_id) WHERE completed;
+
+CREATE INDEX IF NOT EXISTS idx_projects_user ON projects (user_id);
+CREATE INDEX IF NOT EXISTS idx_ideas_user_created ON ideas (user_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_documents_user ON documents (user_id);
+CREATE INDEX IF NOT EXISTS idx_canvases_user ON canvases (user_id);
+CREATE INDEX IF NOT EXISTS idx_canvas_items_canvas ON canvas_items (canvas_id);
+CREATE INDEX IF NOT EXISTS idx_canvas_items_user ON canvas_items (user_id);
+CREATE INDEX IF NOT EXISTS idx_mood_board_items_user ON mood_board_items (user_id);
+CREATE INDEX IF NOT EXISTS idx_user_roles_user ON user_roles (user_id);
+
+-- dashboard_daily_completions needs nothing extra: its (user_id, day) primary key serves the per-user range reads
@@ -0,0 +1,7 @@
+-- Keyset paging of the todo list seeks on (sort key, id) within a user, so each sortable column gets an index
+-- ending in the id tiebreaker. The seek then starts at the cursor instead of reading every earlier row.
+DROP INDEX IF EXISTS idx_todo_user_created;
+CREATE INDEX IF NOT EXISTS idx_todo_user_created_id ON todo (user_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_todo_user_title_id ON todo (user_id, title, id);
+CREATE INDEX IF NOT EXISTS idx_todo_user_priority_id ON todo (user_id, priority, id);
+CREATE INDEX IF NOT EXISTS idx_todo_user_due_date_id ON todo (user_id, due_date, id);
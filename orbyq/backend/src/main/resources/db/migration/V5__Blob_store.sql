@@ -0,0 +1,12 @@
+-- Metadata for the content-addressed files under blobs.dir, with how many canvas items reference each.
+-- BlobStore sweeps rows (and their files) that have sat at zero references past a grace period.
+CREATE TABLE blobs (
+    hash varchar(64) NOT NULL PRIMARY KEY,
+    size bigint NOT NULL,
+    content_type varchar(255) NOT NULL,
+    ref_count integer NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6) NOT NULL
+);
+
+CREATE INDEX idx_blobs_unreferenced ON blobs (updated_at) WHERE ref_count = 0;
@@ -0,0 +1,7 @@
+-- Downscaled copies of each mood board image as blob references, and the original's pixel size. Filled in the
+-- background after upload by ImageDerivativeService; null until then.
+ALTER TABLE mood_board_items
+    ADD COLUMN thumbnail varchar(80),
+    ADD COLUMN preview varchar(80),
+    ADD COLUMN width integer,
+    ADD COLUMN height integer;
@@ -0,0 +1,15 @@
+-- Resumable uploads in progress. The chunks live on disk under uploads.dir/<id>; the row holds the owner, the
+-- agreed size and chunk size, and when the session lapses. UploadService sweeps lapsed sessions with their chunks.
+CREATE TABLE upload_sessions (
+    id uuid NOT NULL PRIMARY KEY,
+    user_id bigint NOT NULL,
+    size bigint NOT NULL,
+    chunk_size integer NOT NULL,
+    content_type varchar(255),
+    created_at timestamp(6) NOT NULL,
+    expires_at timestamp(6) NOT NULL
+);
+
+ALTER TABLE upload_sessions ADD CONSTRAINT fk_upload_sessions_user FOREIGN KEY (user_id) REFERENCES users;
+CREATE INDEX idx_upload_sessions_user ON upload_sessions (user_id);
+CREATE INDEX idx_upload_sessions_expires ON upload_sessions (expires_at);
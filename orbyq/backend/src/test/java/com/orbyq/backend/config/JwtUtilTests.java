@@ -0,0 +1,83 @@
+package com.orbyq.backend.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTests {
+
+	private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef";
+
+	private JwtUtil jwtUtil;
+	private AuthenticatedUser user;
+
+	@BeforeEach
+	void setUp() {
+		jwtUtil = newJwtUtil(60_000L);
+		user = new AuthenticatedUser(42L, "ada@example.com", "secret", List.of("USER"), 3L);
+	}
+
+	private static JwtUtil newJwtUtil(long expiration) {
+		JwtUtil util = new JwtUtil();
+		ReflectionTestUtils.setField(util, "jwtSecret", SECRET);
+		ReflectionTestUtils.setField(util, "refreshSecret", new StringBuilder(SECRET).reverse().toString());
+		ReflectionTestUtils.setField(util, "jwtExpiration", expiration);
+		ReflectionTestUtils.setField(util, "refreshExpiration", expiration);
+		ReflectionTestUtils.setField(util, "verifiedTokenCacheSize", 4);
+		util.init();
+		return util;
+	}
+
+	@Test
+	void verifiesAccessTokenOnceAndServesRepeatsFromCache() {
+		String token = jwtUtil.generateToken(user);
+
+		Optional<VerifiedToken> first = jwtUtil.verifyAccessToken(token);
+		Optional<VerifiedToken> second = jwtUtil.verifyAccessToken(token);
+
+		assertTrue(first.isPresent());
+		assertEquals("ada@example.com", first.get().subject());
+		assertEquals(42L, first.get().userId());
+		assertEquals(List.of("USER"), first.get().roles());
+		assertEquals(3L, first.get().securityVersion());
+		assertSame(first.get(), second.get());
+	}
+
+	@Test
+	void rejectsGarbageTamperedAndExpiredTokens() {
+		String token = jwtUtil.generateToken(user);
+		String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+		assertTrue(jwtUtil.verifyAccessToken(null).isEmpty());
+		assertTrue(jwtUtil.verifyAccessToken("not a token").isEmpty());
+		assertTrue(jwtUtil.verifyAccessToken("a.b.c").isEmpty());
+		assertTrue(jwtUtil.verifyAccessToken(tampered).isEmpty());
+		assertTrue(newJwtUtil(-1_000L).verifyAccessToken(newJwtUtil(-1_000L).generateToken(user)).isEmpty());
+	}
+
+	@Test
+	void refreshAndAccessKeysAreNotInterchangeable() {
+		String refresh = jwtUtil.generateRefreshToken(user);
+
+		assertTrue(jwtUtil.verifyAccessToken(refresh).isEmpty());
+		assertEquals("ada@example.com", jwtUtil.verifyRefreshToken(refresh).orElseThrow().subject());
+	}
+
+	@Test
+	void cacheStaysBounded() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(4);
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < 50; i++) {
+			cache.put("digest-" + i, new VerifiedToken("user-" + i, (long) i, List.of(), 0L, now, now + 60_000L), now);
+		}
+		assertTrue(cache.size() <= 4);
+
+		cache.put("expired", new VerifiedToken("old", 1L, List.of(), 0L, now - 120_000L, now - 60_000L), now);
+		assertNull(cache.get("expired", now));
+	}
+}
@@ -0,0 +1,91 @@
+package com.orbyq.backend.config;
+
+import com.orbyq.backend.support.ApiTestClient;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(OpenSessionInViewTests.BodyWriteProbe.class)
+class OpenSessionInViewTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BodyWriteProbe probe;
+
+	private ApiTestClient api;
+	private String token;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		api = new ApiTestClient(mockMvc);
+		token = api.register("Osiv");
+		probe.observations.clear();
+	}
+
+	@Test
+	void releasesConnectionBeforeWritingResponseBody() throws Exception {
+		api.send(token, post("/api/canvas/new").param("title", "Probe"));
+		api.send(token, get("/api/canvases"));
+		api.send(token, get("/api/taskboard"));
+
+		assertEquals(3, probe.observations.size());
+		for (String observation : probe.observations) {
+			assertEquals("released", observation);
+		}
+	}
+
+	// Records, at the moment each body is about to be serialized, whether a persistence context or transaction is still bound
+	@ControllerAdvice
+	static class BodyWriteProbe implements ResponseBodyAdvice<Object> {
+
+		final List<String> observations = new CopyOnWriteArrayList<>();
+
+		@Autowired
+		private EntityManagerFactory entityManagerFactory;
+
+		@Override
+		public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+			return true;
+		}
+
+		@Override
+		public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+				Class<? extends HttpMessageConverter<?>> selectedConverterType,
+				ServerHttpRequest request, ServerHttpResponse response) {
+			if (!request.getURI().getPath().startsWith("/api/auth")) {
+				if (TransactionSynchronizationManager.hasResource(entityManagerFactory)) {
+					observations.add("entity manager bound");
+				} else if (TransactionSynchronizationManager.isActualTransactionActive()) {
+					observations.add("transaction active");
+				} else {
+					observations.add("released");
+				}
+			}
+			return body;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.orbyq.backend.model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Insert throughput and primary key size for random (v4) versus time-ordered (v7) ids, on tables shaped like
+// activity_logs that already hold a seeded backlog. Not part of the regular test run; start it explicitly:
+//   mvn test -Dtest=UuidInsertBenchmark
+@SpringBootTest
+class UuidInsertBenchmark {
+
+	private static final int SEEDED = 500_000;
+	private static final int MEASURED = 200_000;
+	private static final int BATCH = 1_000;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void dropTables() {
+		jdbcTemplate.execute("DROP TABLE IF EXISTS uuid_bench_v4");
+		jdbcTemplate.execute("DROP TABLE IF EXISTS uuid_bench_v7");
+	}
+
+	@Test
+	void compareRandomAndTimeOrderedIds() {
+		Result v4 = run("uuid_bench_v4", UUID::randomUUID);
+		Result v7 = run("uuid_bench_v7", UuidV7Generator::next);
+
+		System.out.printf("%-4s %12s %14s%n", "ids", "rows/s", "pkey size");
+		System.out.printf("%-4s %12.0f %11d kB%n", "v4", v4.rowsPerSecond(), v4.indexBytes() / 1024);
+		System.out.printf("%-4s %12.0f %11d kB%n", "v7", v7.rowsPerSecond(), v7.indexBytes() / 1024);
+
+		// Right-edge appends leave index pages full; random inserts split them to about half
+		assertTrue(v7.indexBytes() < v4.indexBytes());
+	}
+
+	private Result run(String table, Supplier<UUID> ids) {
+		jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+		jdbcTemplate.execute("CREATE TABLE " + table + " (id uuid PRIMARY KEY, user_id bigint NOT NULL, " +
+				"action varchar(255), created_at timestamp(6) NOT NULL)");
+		insert(table, ids, SEEDED);
+		jdbcTemplate.execute("CHECKPOINT");
+
+		long started = System.nanoTime();
+		insert(table, ids, MEASURED);
+		double seconds = (System.nanoTime() - started) / 1e9;
+
+		Long indexBytes = jdbcTemplate.queryForObject("SELECT pg_relation_size('" + table + "_pkey')", Long.class);
+		return new Result(MEASURED / seconds, indexBytes);
+	}
+
+	private void insert(String table, Supplier<UUID> ids, int rows) {
+		String sql = "INSERT INTO " + table + " (id, user_id, action, created_at) VALUES (?, ?, ?, ?)";
+		for (int done = 0; done < rows; done += BATCH) {
+			List<Object[]> batch = new ArrayList<>(BATCH);
+			Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+			for (int i = 0; i < BATCH; i++) {
+				batch.add(new Object[]{ids.get(), (long) (done + i) % 100, "Task created", now});
+			}
+			jdbcTemplate.batchUpdate(sql, batch);
+		}
+	}
+
+	private record Result(double rowsPerSecond, long indexBytes) {
+	}
+}
@@ -0,0 +1,63 @@
+package com.orbyq.backend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7GeneratorTests {
+
+	@Test
+	void generatesStrictlyIncreasingVersionSevenIds() {
+		Instant before = Instant.now();
+		UUID previous = UuidV7Generator.next();
+		// Far more ids than one millisecond's counter holds, so the carry into the timestamp is exercised too
+		for (int i = 0; i < 50_000; i++) {
+			UUID id = UuidV7Generator.next();
+			assertEquals(7, id.version());
+			assertEquals(2, id.variant());
+			assertTrue(id.compareTo(previous) > 0, previous + " then " + id);
+			// PostgreSQL orders uuids bytewise, i.e. as unsigned numbers
+			assertTrue(Long.compareUnsigned(id.getMostSignificantBits(), previous.getMostSignificantBits()) > 0
+					|| id.getMostSignificantBits() == previous.getMostSignificantBits()
+					&& Long.compareUnsigned(id.getLeastSignificantBits(), previous.getLeastSignificantBits()) > 0);
+			previous = id;
+		}
+		assertFalse(UuidV7Generator.timestamp(previous).isBefore(before.minusMillis(1)));
+	}
+
+	@Test
+	void staysUniqueAcrossThreads() throws InterruptedException {
+		Set<UUID> ids = ConcurrentHashMap.newKeySet();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					ids.add(UuidV7Generator.next());
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(40_000, ids.size());
+	}
+
+	@Test
+	void lowerBoundSortsBeforeIdsFromThatMillisecond() {
+		UUID id = UuidV7Generator.next();
+		Instant created = UuidV7Generator.timestamp(id);
+
+		assertTrue(UuidV7Generator.lowerBound(created).compareTo(id) <= 0);
+		assertTrue(UuidV7Generator.lowerBound(created.plusMillis(1)).compareTo(id) > 0);
+		assertThrows(IllegalArgumentException.class, () -> UuidV7Generator.timestamp(UUID.randomUUID()));
+	}
+}
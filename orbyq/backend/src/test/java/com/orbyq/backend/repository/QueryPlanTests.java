@@ -0,0 +1,260 @@
+package com.orbyq.backend.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orbyq.backend.support.ApiTestClient;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Drives every API path against a seeded user, captures the SQL Hibernate sends, and explains each statement's
+// generic plan with sequential scans disabled. A Seq Scan that survives that means no index can serve the query.
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+		+ "com.orbyq.backend.repository.QueryPlanTests$Recorder")
+@AutoConfigureMockMvc
+class QueryPlanTests {
+
+	private static final int SEED_ROWS = 25;
+	private static final Pattern UNTYPED_PARAMETER = Pattern.compile("could not determine data type of parameter \\$(\\d+)");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private ApiTestClient api;
+	private String token;
+
+	@BeforeEach
+	void setUp() {
+		api = new ApiTestClient(mockMvc);
+	}
+
+	@Test
+	void everyQueryPathIsServedByAnIndex() throws Exception {
+		exerciseApi();
+
+		List<String> failures = new ArrayList<>();
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		for (String sql : new TreeSet<>(Recorder.statements)) {
+			if (sql.stripLeading().toLowerCase(Locale.ROOT).startsWith("insert")) {
+				continue;
+			}
+			String plan = explain(transaction, sql);
+			Set<String> scanned = new TreeSet<>();
+			collectSeqScans(objectMapper.readTree(plan), scanned);
+			if (!scanned.isEmpty()) {
+				failures.add(scanned + " <- " + sql);
+			}
+		}
+
+		assertFalse(Recorder.statements.isEmpty());
+		assertTrue(failures.isEmpty(), "Sequential scans:\n" + String.join("\n", failures));
+	}
+
+	private void exerciseApi() throws Exception {
+		String email = ApiTestClient.uniqueEmail("Plans");
+		JsonNode auth = api.registerUser("Plans", email);
+		token = auth.get("token").asText();
+		api.json(null, post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"email\":\"" + email + "\",\"password\":\"" + ApiTestClient.PASSWORD + "\"}"));
+		api.json(null, post("/api/auth/refresh").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"refreshToken\":\"" + auth.get("refreshToken").asText() + "\"}"));
+
+		String dueDate = LocalDate.now().plusDays(3).toString();
+		send(post("/api/timeline/project"), "{\"name\":\"Plan project\",\"color\":\"bg-category-work\"}");
+		String projectId = api.json(token, get("/api/timeline")).get("projects").get(0).get("id").asText();
+		String[] priorities = {"low", "medium", "high"};
+		String[] categories = {"work", "personal", "learning"};
+		for (int i = 0; i < SEED_ROWS; i++) {
+			send(post("/api/taskboard"), "{\"title\":\"Task " + i + "\",\"description\":\"d\",\"priority\":\"" + priorities[i % 3]
+					+ "\",\"dueDate\":\"" + dueDate + "\",\"status\":\"TODO\"}");
+			send(post("/api/timeline/task"), "{\"title\":\"Project task " + i + "\",\"description\":\"d\",\"priority\":\"high\","
+					+ "\"projectId\":\"" + projectId + "\",\"startDay\":\"" + LocalDate.now() + "\",\"duration\":3}");
+			send(post("/api/todos"), "{\"title\":\"Todo " + i + "\",\"priority\":\"" + priorities[i % 3] + "\",\"dueDate\":\""
+					+ dueDate + "\",\"category\":\"" + categories[i % 3] + "\"}");
+		}
+		send(post("/api/timeline/project/color"), "{\"projectId\":\"" + projectId + "\",\"color\":\"bg-priority-high\"}");
+
+		JsonNode board = api.json(token, get("/api/taskboard"));
+		String taskId = board.get("tasks").fieldNames().next();
+		send(patch("/api/taskboard/" + taskId + "/status"), "{\"status\":\"DONE\"}");
+		send(put("/api/taskboard/" + taskId), "{\"title\":\"Task\",\"description\":\"d\",\"priority\":\"low\","
+				+ "\"dueDate\":\"" + dueDate + "\",\"status\":\"REVIEW\"}");
+		send(delete("/api/taskboard/" + taskId), null);
+
+		for (String query : new String[]{"", "&completed=false", "&priority=high", "&category=work",
+				"&completed=false&priority=low&category=personal", "&sortBy=title&sortDirection=asc",
+				"&sortBy=dueDate", "&sortBy=priority&completed=true", "&facets=true", "&facets=true&priority=high&category=work"}) {
+			api.json(token, get("/api/todos?page=0&size=10" + query));
+		}
+		for (String query : new String[]{"&count=exact", "&count=approximate&completed=false", "&sortBy=title&sortDirection=asc",
+				"&sortBy=dueDate", "&sortBy=dueDate&sortDirection=asc", "&sortBy=priority&priority=high"}) {
+			JsonNode first = api.json(token, get("/api/todos?size=5&cursor=" + query));
+			api.json(token, get("/api/todos?size=5&cursor=" + first.get("nextCursor").asText() + query));
+		}
+		String todoId = api.json(token, get("/api/todos?page=0&size=10")).get("todos").get(0).get("id").asText();
+		send(put("/api/todos/" + todoId + "/complete"), "{\"completed\":true}");
+		send(put("/api/todos/" + todoId), "{\"title\":\"Todo\",\"priority\":\"medium\",\"dueDate\":\"\",\"category\":\"learning\"}");
+		send(delete("/api/todos/" + todoId), null);
+
+		api.json(token, get("/api/timeline?status=TODO&priority=HIGH"));
+		api.json(token, get("/api/dashboard"));
+
+		String documentId = api.json(token, post("/api/document/new").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"Doc\",\"content\":\"body\"}")).get("id").asText();
+		api.json(token, get("/api/documents"));
+		send(put("/api/document/" + documentId), "{\"title\":\"Doc 2\",\"content\":\"body 2\"}");
+		send(delete("/api/document/" + documentId), null);
+
+		String canvasId = api.json(token, post("/api/canvas/new?title=Plans")).get("id").asText();
+		api.json(token, get("/api/canvases"));
+		send(put("/api/canvas/" + canvasId + "/title?title=Plans2"), null);
+		String itemId = api.json(token, post("/api/canvas/" + canvasId).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"type\":\"text\",\"content\":\"hi\",\"x\":1,\"y\":2,\"width\":3,\"height\":4}")).get("id").asText();
+		api.json(token, get("/api/canvas/" + canvasId));
+		send(put("/api/canvas/" + canvasId + "/" + itemId), "{\"type\":\"text\",\"content\":\"hey\",\"x\":5,\"y\":6,\"width\":3,\"height\":4}");
+		send(delete("/api/canvas/" + canvasId + "/" + itemId), null);
+		MockMultipartFile canvasImage = new MockMultipartFile("file", "plan.png", "image/png", UUID.randomUUID().toString().getBytes());
+		MockMultipartFile imageItem = new MockMultipartFile("canvasItem", "", "application/json",
+				"{\"type\":\"image\",\"x\":0,\"y\":0,\"width\":1,\"height\":1}".getBytes());
+		JsonNode imageCreated = api.json(token, multipart("/api/canvas/" + canvasId).file(imageItem).file(canvasImage));
+		send(put("/api/canvas/" + canvasId + "/" + imageCreated.get("id").asText()), "{\"type\":\"image\",\"content\":\""
+				+ imageCreated.get("content").asText() + "\",\"x\":2,\"y\":2,\"width\":1,\"height\":1}");
+		String blobUrl = imageCreated.get("content").asText();
+		api.send(null, get(blobUrl.substring(blobUrl.indexOf("/api/blobs/"))));
+		send(delete("/api/canvas/" + canvasId), null);
+
+		MockMultipartFile image = new MockMultipartFile("file", "plan.png", "image/png", new byte[]{1, 2, 3});
+		String moodBoardId = api.json(token, multipart("/api/moodboard/new").file(image)).get("id").asText();
+		api.json(token, get("/api/moodboard"));
+		send(delete("/api/moodboard/" + moodBoardId), null);
+
+		// Let the activity writer flush so the feed pages have rows behind them
+		Thread.sleep(1000);
+		JsonNode feed = api.json(token, get("/api/activity?size=5"));
+		api.json(token, get("/api/activity?size=5&cursor=" + feed.get("nextCursor").asText()));
+		JsonNode taskFeed = api.json(token, get("/api/activity?size=5&action=Task"));
+		api.json(token, get("/api/activity?size=5&action=Task&cursor=" + taskFeed.get("nextCursor").asText()));
+		api.json(token, get("/api/user/me"));
+	}
+
+	private void send(MockHttpServletRequestBuilder request, String body) throws Exception {
+		if (body != null) {
+			request.contentType(MediaType.APPLICATION_JSON).content(body);
+		}
+		api.send(token, request);
+	}
+
+	// Prepared server-side so the plan is the generic one, independent of any particular parameter values.
+	// Hibernate binds every occurrence of a named parameter separately, so a lone "? IS NULL" has no type the
+	// server can infer; those are retried as text.
+	private String explain(TransactionTemplate transaction, String sql) {
+		StringBuilder positional = new StringBuilder(sql.length() + 16);
+		int parameters = positional(sql, positional);
+		List<String> types = new ArrayList<>(Collections.nCopies(parameters, "unknown"));
+		while (true) {
+			try {
+				return transaction.execute(status -> {
+					jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+					jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+					jdbcTemplate.execute("PREPARE plan_check" + arguments(types) + " AS " + positional);
+					try {
+						return jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) EXECUTE plan_check"
+								+ arguments(Collections.nCopies(parameters, "NULL")), String.class);
+					} finally {
+						jdbcTemplate.execute("DEALLOCATE plan_check");
+					}
+				});
+			} catch (DataAccessException e) {
+				Matcher untyped = UNTYPED_PARAMETER.matcher(String.valueOf(e.getMostSpecificCause().getMessage()));
+				if (!untyped.find() || !types.set(Integer.parseInt(untyped.group(1)) - 1, "text").equals("unknown")) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	private static String arguments(List<String> values) {
+		return values.isEmpty() ? "" : "(" + String.join(", ", values) + ")";
+	}
+
+	// JDBC placeholders to the $n parameters of a server-side prepared statement
+	private static int positional(String sql, StringBuilder out) {
+		boolean quoted = false;
+		int parameter = 0;
+		for (int i = 0; i < sql.length(); i++) {
+			char c = sql.charAt(i);
+			if (c == '\'') {
+				quoted = !quoted;
+			}
+			if (c == '?' && !quoted) {
+				out.append('$').append(++parameter);
+			} else {
+				out.append(c);
+			}
+		}
+		return parameter;
+	}
+
+	private static void collectSeqScans(JsonNode node, Set<String> relations) {
+		if (node.isArray()) {
+			node.forEach(child -> collectSeqScans(child, relations));
+			return;
+		}
+		if ("Seq Scan".equals(node.path("Node Type").asText())) {
+			relations.add(node.path("Relation Name").asText());
+		}
+		if (node.has("Plan")) {
+			collectSeqScans(node.get("Plan"), relations);
+		}
+		if (node.has("Plans")) {
+			collectSeqScans(node.get("Plans"), relations);
+		}
+	}
+
+	public static class Recorder implements StatementInspector {
+
+		static final Set<String> statements = ConcurrentHashMap.newKeySet();
+
+		@Override
+		public String inspect(String sql) {
+			statements.add(sql);
+			return sql;
+		}
+	}
+}
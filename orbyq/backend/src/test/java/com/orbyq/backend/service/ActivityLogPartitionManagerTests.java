@@ -0,0 +1,89 @@
+package com.orbyq.backend.service;
+
+import com.orbyq.backend.support.ApiTestClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ActivityLogPartitionManagerTests {
+
+	// Far enough out that the scheduled maintenance never creates or drops these months
+	private static final YearMonth FUTURE = YearMonth.of(2090, 3);
+	private static final YearMonth EXPIRED = YearMonth.of(1990, 3);
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ActivityLogPartitionManager partitionManager;
+
+	private long userId;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		String email = ApiTestClient.uniqueEmail("Partitions");
+		new ApiTestClient(mockMvc).registerUser("Partitions", email);
+		userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.execute("DROP TABLE IF EXISTS " + ActivityLogPartitionManager.partitionName(FUTURE));
+		jdbcTemplate.update("DELETE FROM activity_logs WHERE user_id = ?", userId);
+	}
+
+	@Test
+	void createdPartitionTakesOverRowsFromDefaultPartition() {
+		UUID first = log(FUTURE.atDay(1).atStartOfDay());
+		UUID last = log(FUTURE.atEndOfMonth().atTime(23, 59));
+		UUID nextMonth = log(FUTURE.plusMonths(1).atDay(1).atStartOfDay());
+
+		partitionManager.createPartitionTakingDefaultRows(FUTURE);
+
+		String partition = ActivityLogPartitionManager.partitionName(FUTURE);
+		assertEquals(partition, partitionOf(first));
+		assertEquals(partition, partitionOf(last));
+		assertEquals("activity_logs_default", partitionOf(nextMonth));
+		// Attached like any other partition: later rows for the month are routed to it
+		assertEquals(partition, partitionOf(log(FUTURE.atDay(15).atStartOfDay())));
+	}
+
+	@Test
+	void retentionDeletesExpiredRowsFromDefaultPartition() {
+		UUID expired = log(EXPIRED.atDay(10).atStartOfDay());
+		UUID kept = log(EXPIRED.plusMonths(1).atDay(1).atStartOfDay());
+
+		partitionManager.dropPartitionsBefore(EXPIRED.plusMonths(1));
+
+		assertNull(partitionOf(expired));
+		assertEquals("activity_logs_default", partitionOf(kept));
+	}
+
+	private UUID log(LocalDateTime createdAt) {
+		UUID id = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO activity_logs (id, user_id, action, details, created_at) VALUES (?, ?, 'test', 'partition', ?)",
+				id, userId, createdAt);
+		return id;
+	}
+
+	private String partitionOf(UUID id) {
+		return jdbcTemplate.queryForList("SELECT CAST(tableoid::regclass AS text) FROM activity_logs WHERE id = ?", String.class, id)
+				.stream().findFirst().orElse(null);
+	}
+}
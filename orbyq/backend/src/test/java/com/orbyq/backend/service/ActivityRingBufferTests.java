@@ -0,0 +1,73 @@
+package com.orbyq.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActivityRingBufferTests {
+
+	@Test
+	void keepsFifoOrderAndRejectsWhenFull() {
+		ActivityRingBuffer<Integer> buffer = new ActivityRingBuffer<>(3);
+		assertEquals(4, buffer.capacity());
+
+		for (int i = 0; i < 4; i++) {
+			assertTrue(buffer.offer(i));
+		}
+		assertFalse(buffer.offer(4));
+		assertEquals(4, buffer.size());
+
+		assertEquals(0, buffer.poll());
+		assertTrue(buffer.offer(4));
+
+		List<Integer> drained = new ArrayList<>();
+		assertEquals(4, buffer.drainTo(drained, 10));
+		assertEquals(List.of(1, 2, 3, 4), drained);
+		assertNull(buffer.poll());
+	}
+
+	@Test
+	void concurrentProducersLoseNothing() throws InterruptedException {
+		ActivityRingBuffer<Integer> buffer = new ActivityRingBuffer<>(64);
+		int producers = 4;
+		int perProducer = 2_000;
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			int base = p * perProducer;
+			threads.add(Thread.ofPlatform().start(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < perProducer; i++) {
+					while (!buffer.offer(base + i)) {
+						Thread.onSpinWait();
+					}
+				}
+			}));
+		}
+
+		Set<Integer> seen = new HashSet<>();
+		List<Integer> batch = new ArrayList<>();
+		start.countDown();
+		while (seen.size() < producers * perProducer) {
+			buffer.drainTo(batch, 32);
+			for (Integer value : batch) {
+				assertTrue(seen.add(value), "duplicate " + value);
+			}
+			batch.clear();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(0, buffer.size());
+	}
+}
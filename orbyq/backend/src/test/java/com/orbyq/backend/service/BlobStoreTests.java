@@ -0,0 +1,134 @@
+package com.orbyq.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.orbyq.backend.support.ApiTestClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BlobStoreTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private BlobStore blobStore;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private ApiTestClient api;
+	private String token;
+
+	@BeforeEach
+	void setUp() {
+		api = new ApiTestClient(mockMvc);
+	}
+
+	// Same bytes through a multipart upload and a JSON data URI land on one blob, counted once per item, and the
+	// canvas load carries only its URL
+	@Test
+	void storesImagesOnceAndCountsReferences() throws Exception {
+		token = api.register("Blobs");
+
+		byte[] image = ("png bytes " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+		String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(image));
+		String canvasId = api.json(token, post("/api/canvas/new?title=Blobs")).get("id").asText();
+
+		MockMultipartFile canvasItem = new MockMultipartFile("canvasItem", "", "application/json",
+				"{\"type\":\"image\",\"x\":0,\"y\":0,\"width\":10,\"height\":10}".getBytes(StandardCharsets.UTF_8));
+		MockMultipartFile file = new MockMultipartFile("file", "photo.png", "image/png", image);
+		JsonNode uploaded = api.json(token, multipart("/api/canvas/" + canvasId).file(canvasItem).file(file));
+		assertTrue(uploaded.get("content").asText().endsWith("/api/blobs/" + hash), uploaded.get("content").asText());
+
+		JsonNode inline = api.json(token, post("/api/canvas/" + canvasId).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"type\":\"image\",\"content\":\"data:image/png;base64," + Base64.getEncoder().encodeToString(image)
+						+ "\",\"x\":0,\"y\":0,\"width\":10,\"height\":10}"));
+		assertEquals(uploaded.get("content").asText(), inline.get("content").asText());
+		assertEquals(2, refCount(hash));
+
+		MockHttpServletResponse served = api.perform(null, get("/api/blobs/" + hash), status().isOk());
+		assertArrayEquals(image, served.getContentAsByteArray());
+		assertEquals("image/png", served.getContentType());
+		assertTrue(served.getHeader("Cache-Control").contains("immutable"));
+
+		// Moving the item sends its URL back, which must not count as another reference
+		String itemId = inline.get("id").asText();
+		api.send(token, put("/api/canvas/" + canvasId + "/" + itemId).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"type\":\"image\",\"content\":\"" + inline.get("content").asText() + "\",\"x\":5,\"y\":5,\"width\":10,\"height\":10}"));
+		assertEquals(2, refCount(hash));
+		String stored = jdbcTemplate.queryForObject("SELECT content FROM canvas_items WHERE id = ?", String.class, UUID.fromString(itemId));
+		assertEquals("blob:" + hash, stored);
+
+		api.send(token, delete("/api/canvas/" + canvasId + "/" + itemId));
+		assertEquals(1, refCount(hash));
+		api.send(token, delete("/api/canvas/" + canvasId));
+		assertEquals(0, refCount(hash));
+
+		api.send(null, get("/api/blobs/" + "0".repeat(64)), status().isNotFound());
+	}
+
+	// A reference whose transaction rolls back leaves its file behind without a row; once that file has sat out the
+	// grace period the sweep removes it, while an equally old file that does have a row stays
+	@Test
+	void sweepsFilesLeftWithoutRow() throws Exception {
+		byte[] rolledBack = ("rolled back " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+		byte[] published = ("published " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+		String orphan;
+		try (BlobStore.Staged staged = blobStore.stage(rolledBack, "image/png")) {
+			orphan = staged.hash();
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+				blobStore.acquire(staged);
+				status.setRollbackOnly();
+			});
+		}
+		String kept;
+		try (BlobStore.Staged staged = blobStore.stage(published, "image/png")) {
+			kept = blobStore.publish(staged);
+		}
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM blobs WHERE hash = ?", Long.class, orphan));
+		FileTime old = FileTime.from(Instant.now().minus(Duration.ofDays(1)));
+		Path orphanFile = blobStore.path(orphan);
+		Path keptFile = blobStore.path(kept);
+		Files.setLastModifiedTime(orphanFile, old);
+		Files.setLastModifiedTime(keptFile, old);
+
+		blobStore.sweep();
+
+		assertFalse(Files.exists(orphanFile));
+		assertTrue(Files.exists(keptFile));
+	}
+
+	private long refCount(String hash) {
+		return jdbcTemplate.queryForObject("SELECT ref_count FROM blobs WHERE hash = ?", Long.class, hash);
+	}
+}
@@ -0,0 +1,123 @@
+package com.orbyq.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlobStreamingTests {
+
+	private static final long UPLOAD_SIZE = 32L * 1024 * 1024;
+	private static final int CONCURRENT_UPLOADS = 8;
+	// Well under the size of a single upload; the copy itself needs one chunk
+	private static final long ALLOCATION_LIMIT = 1024 * 1024;
+
+	@TempDir
+	private Path root;
+
+	// Each thread streams a 32 MB upload through staging while the others do the same. What a thread allocates is
+	// measured directly: if any upload were buffered whole, its thread would allocate at least its size.
+	@Test
+	void concurrentUploadsAllocateAConstantAmount() throws Exception {
+		BlobFiles files = new BlobFiles(root);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		// Warms up class loading and the digest so the measured runs only see the copy
+		files.stage(new GeneratedStream(1024, (byte) 0), "image/png").close();
+
+		ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_UPLOADS);
+		try {
+			List<Future<Long>> allocations = new ArrayList<>();
+			for (int i = 0; i < CONCURRENT_UPLOADS; i++) {
+				byte seed = (byte) i;
+				allocations.add(executor.submit(() -> {
+					long before = threads.getCurrentThreadAllocatedBytes();
+					try (BlobStore.Staged staged = files.stage(new GeneratedStream(UPLOAD_SIZE, seed), "image/png", UPLOAD_SIZE)) {
+						long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+						assertEquals(UPLOAD_SIZE, staged.size());
+						assertEquals(UPLOAD_SIZE, Files.size(staged.file()));
+						assertEquals("image/png", staged.contentType());
+						return allocated;
+					}
+				}));
+			}
+			for (Future<Long> allocated : allocations) {
+				assertTrue(allocated.get() < ALLOCATION_LIMIT, "Upload allocated " + allocated.get() + " bytes");
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void rejectsOversizeUploadsAndSniffsTheType() throws Exception {
+		BlobFiles files = new BlobFiles(root);
+		assertThrows(MaxUploadSizeExceededException.class,
+				() -> files.stage(new GeneratedStream(BlobFiles.CHUNK_SIZE * 3L, (byte) 1), "image/png", BlobFiles.CHUNK_SIZE * 2L));
+		try (Stream<Path> staged = Files.list(root.resolve("tmp"))) {
+			assertEquals(0, staged.count());
+		}
+
+		byte[] svg = "<?xml version=\"1.0\"?>\n<svg xmlns=\"http://www.w3.org/2000/svg\"/>".getBytes(StandardCharsets.UTF_8);
+		try (BlobStore.Staged staged = files.stage(new ByteArrayInputStream(svg), "image/png")) {
+			assertEquals("image/svg+xml", staged.contentType());
+		}
+		byte[] html = "<html><script>alert(1)</script></html>".getBytes(StandardCharsets.UTF_8);
+		try (BlobStore.Staged staged = files.stage(new ByteArrayInputStream(html), "text/html")) {
+			assertEquals("application/octet-stream", staged.contentType());
+		}
+	}
+
+	// A PNG signature followed by filler, produced as it is read instead of held in memory
+	private static class GeneratedStream extends InputStream {
+
+		private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+		private final long size;
+		private final byte seed;
+		private long position;
+
+		GeneratedStream(long size, byte seed) {
+			this.size = size;
+			this.seed = seed;
+		}
+
+		@Override
+		public int read() {
+			if (position >= size) {
+				return -1;
+			}
+			return byteAt(position++) & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) {
+			if (position >= size) {
+				return -1;
+			}
+			// Short reads, like a network stream
+			int count = (int) Math.min(Math.min(length, 8192), size - position);
+			for (int i = 0; i < count; i++) {
+				buffer[offset + i] = byteAt(position++);
+			}
+			return count;
+		}
+
+		private byte byteAt(long index) {
+			return index < PNG.length ? PNG[(int) index] : (byte) (index * 31 + seed);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.orbyq.backend.service;
+
+import com.orbyq.backend.support.ApiTestClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalRequestTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private ApiTestClient api;
+
+	@BeforeEach
+	void setUp() {
+		api = new ApiTestClient(mockMvc);
+	}
+
+	// Revalidation by ETag and date, single ranges, and If-Range falling back to the whole body
+	@Test
+	void blobsAnswerConditionalAndRangeRequests() throws Exception {
+		String token = api.register("Cache");
+		byte[] image = ("not really a png " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+		String url = api.json(token, post("/api/moodboard/new").contentType(MediaType.IMAGE_PNG).content(image))
+				.get("imageUrl").asText();
+		String path = url.substring(url.indexOf("/api/blobs/"));
+
+		MockHttpServletResponse full = perform(null, get(path), 200);
+		String etag = full.getHeader("ETag");
+		String lastModified = full.getHeader("Last-Modified");
+		assertEquals("\"" + path.substring(path.lastIndexOf('/') + 1) + "\"", etag);
+		assertEquals("bytes", full.getHeader("Accept-Ranges"));
+
+		assertEquals(0, perform(null, get(path).header("If-None-Match", etag), 304).getContentAsByteArray().length);
+		perform(null, get(path).header("If-None-Match", "\"other\""), 200);
+		perform(null, get(path).header("If-Modified-Since", lastModified), 304);
+
+		MockHttpServletResponse partial = perform(null, get(path).header("Range", "bytes=4-9"), 206);
+		assertArrayEquals(Arrays.copyOfRange(image, 4, 10), partial.getContentAsByteArray());
+		assertEquals("bytes 4-9/" + image.length, partial.getHeader("Content-Range"));
+		MockHttpServletResponse suffix = perform(null, get(path).header("Range", "bytes=-5"), 206);
+		assertArrayEquals(Arrays.copyOfRange(image, image.length - 5, image.length), suffix.getContentAsByteArray());
+		assertEquals("bytes */" + image.length, perform(null, get(path).header("Range", "bytes=" + image.length + "-"), 416)
+				.getHeader("Content-Range"));
+
+		perform(null, get(path).header("Range", "bytes=4-9").header("If-Range", etag), 206);
+		assertArrayEquals(image, perform(null, get(path).header("Range", "bytes=4-9").header("If-Range", "\"stale\""), 200)
+				.getContentAsByteArray());
+		assertArrayEquals(image, perform(null, get(path).header("Range", "bytes=0-1,4-5"), 200).getContentAsByteArray());
+	}
+
+	// The ETag follows the body across an edit, and other users can't read it
+	@Test
+	void documentContentRevalidatesByContentHash() throws Exception {
+		String token = api.register("Cache");
+		String id = api.json(token, post("/api/document/new").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"Notes\",\"content\":\"Héllo world\"}")).get("id").asText();
+		String path = "/api/document/" + id + "/content";
+
+		MockHttpServletResponse first = perform(token, get(path), 200);
+		assertEquals("Héllo world", first.getContentAsString(StandardCharsets.UTF_8));
+		String etag = first.getHeader("ETag");
+		perform(token, get(path).header("If-None-Match", etag), 304);
+		MockHttpServletResponse range = perform(token, get(path).header("Range", "bytes=7-"), 206);
+		assertEquals("world", range.getContentAsString(StandardCharsets.UTF_8));
+
+		api.send(token, put("/api/document/" + id).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"Notes\",\"content\":\"Hello again\"}"));
+		MockHttpServletResponse edited = perform(token, get(path).header("If-None-Match", etag), 200);
+		assertEquals("Hello again", edited.getContentAsString(StandardCharsets.UTF_8));
+		assertNotEquals(etag, edited.getHeader("ETag"));
+
+		perform(api.register("Cache"), get(path), 403);
+	}
+
+	private MockHttpServletResponse perform(String token, MockHttpServletRequestBuilder request, int expected) throws Exception {
+		return api.perform(token, request, status().is(expected));
+	}
+}
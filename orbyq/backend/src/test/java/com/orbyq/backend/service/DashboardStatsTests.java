@@ -0,0 +1,138 @@
+package com.orbyq.backend.service;
+
+import com.orbyq.backend.support.ApiTestClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class DashboardStatsTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private DashboardStatsService dashboardStatsService;
+
+	private ApiTestClient api;
+	private String token;
+	private long userId;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		api = new ApiTestClient(mockMvc);
+		String email = ApiTestClient.uniqueEmail("Stats");
+		token = api.registerUser("Stats", email).get("token").asText();
+		userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+	}
+
+	// Every write the API offers, on board and project tasks, leaves the incrementally maintained read model equal to
+	// a recount from the source tables. Tasks only enter a project when created on the timeline; no endpoint moves
+	// an existing one into a project.
+	@Test
+	void incrementalCountersMatchRebuildAfterEveryWrite() throws Exception {
+		String first = createBoardTask("First");
+		assertMatchesRebuild();
+		String second = createBoardTask("Second");
+		assertMatchesRebuild();
+
+		api.send(token, post("/api/timeline/project").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Stats project\",\"color\":\"bg-category-work\"}"));
+		assertMatchesRebuild();
+		String projectId = jdbcTemplate.queryForObject("SELECT CAST(id AS text) FROM projects WHERE user_id = ?", String.class, userId);
+		api.send(token, post("/api/timeline/task").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"In project\",\"description\":\"d\",\"priority\":\"high\",\"projectId\":\"" + projectId
+						+ "\",\"startDay\":\"" + LocalDate.now() + "\",\"duration\":2}"));
+		assertMatchesRebuild();
+		String inProject = jdbcTemplate.queryForObject("SELECT CAST(id AS text) FROM tasks WHERE user_id = ? AND project_id IS NOT NULL",
+				String.class, userId);
+
+		// Complete, complete again, and edit while done: only the first counts
+		setStatus(first, "DONE");
+		assertMatchesRebuild();
+		setStatus(first, "DONE");
+		assertMatchesRebuild();
+		api.send(token, put("/api/taskboard/" + first).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"First edited\",\"description\":\"d\",\"priority\":\"low\",\"dueDate\":\""
+						+ LocalDate.now() + "\",\"status\":\"DONE\"}"));
+		assertMatchesRebuild();
+		setStatus(inProject, "DONE");
+		assertMatchesRebuild();
+
+		// Reopening takes the completion off the day it was made, not today
+		LocalDate yesterday = LocalDate.now().minusDays(1);
+		jdbcTemplate.update("UPDATE tasks SET completed_at = ? WHERE id = ?", yesterday, UUID.fromString(first));
+		jdbcTemplate.update("UPDATE dashboard_daily_completions SET completed = completed - 1 WHERE user_id = ? AND day = ?", userId, LocalDate.now());
+		jdbcTemplate.update("INSERT INTO dashboard_daily_completions (user_id, day, completed) VALUES (?, ?, 1)", userId, yesterday);
+		assertMatchesRebuild();
+		setStatus(first, "IN_PROGRESS");
+		assertMatchesRebuild();
+		setStatus(inProject, "REVIEW");
+		assertMatchesRebuild();
+		setStatus(inProject, "DONE");
+		assertMatchesRebuild();
+
+		api.send(token, delete("/api/taskboard/" + inProject));
+		assertMatchesRebuild();
+		setStatus(second, "DONE");
+		api.send(token, delete("/api/taskboard/" + second));
+		assertMatchesRebuild();
+		api.send(token, delete("/api/taskboard/" + first));
+		assertMatchesRebuild();
+		assertEquals(0L, jdbcTemplate.queryForObject("SELECT task_count FROM dashboard_stats WHERE user_id = ?", Long.class, userId));
+	}
+
+	private String createBoardTask(String title) throws Exception {
+		return api.json(token, post("/api/taskboard").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"" + title + "\",\"description\":\"d\",\"priority\":\"medium\",\"dueDate\":\""
+						+ LocalDate.now().plusDays(2) + "\",\"status\":\"TODO\"}")).get("id").asText();
+	}
+
+	private void setStatus(String taskId, String status) throws Exception {
+		api.send(token, patch("/api/taskboard/" + taskId + "/status").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"status\":\"" + status + "\"}"));
+	}
+
+	// Rebuilt inside a transaction that is rolled back, so the read model under test is left as the writes made it
+	private void assertMatchesRebuild() {
+		List<Map<String, Object>> maintained = readModel();
+		List<Map<String, Object>> rebuilt = new TransactionTemplate(transactionManager).execute(status -> {
+			dashboardStatsService.rebuild(userId);
+			status.setRollbackOnly();
+			return readModel();
+		});
+		assertEquals(rebuilt, maintained);
+	}
+
+	// A day decremented back to zero keeps its row, which a rebuild never writes; both read as zero
+	private List<Map<String, Object>> readModel() {
+		List<Map<String, Object>> rows = new ArrayList<>(jdbcTemplate.queryForList("SELECT task_count, completed_count, "
+				+ "project_task_count, project_completed_count, project_count, idea_count FROM dashboard_stats WHERE user_id = ?", userId));
+		rows.addAll(jdbcTemplate.queryForList("SELECT day, completed FROM dashboard_daily_completions "
+				+ "WHERE user_id = ? AND completed <> 0 ORDER BY day", userId));
+		return rows;
+	}
+}
@@ -0,0 +1,122 @@
+package com.orbyq.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.orbyq.backend.support.ApiTestClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MoodBoardDerivativeTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private ApiTestClient api;
+	private String token;
+
+	@BeforeEach
+	void setUp() {
+		api = new ApiTestClient(mockMvc);
+	}
+
+	// A large upload gets a scaled thumbnail and preview in the background; a small one reuses its original for both.
+	// Deleting the item releases every blob it held.
+	@Test
+	void listsThumbnailsOnceGenerated() throws Exception {
+		token = api.register("Board");
+
+		String largeId = upload(png(2000, 1000)).get("id").asText();
+		// The raw-body upload, streamed without the multipart parser
+		String smallId = api.json(token, post("/api/moodboard/new").contentType(MediaType.IMAGE_PNG).content(png(100, 50))).get("id").asText();
+
+		JsonNode large = null;
+		JsonNode small = null;
+		for (int attempt = 0; attempt < 100 && (large == null || small == null); attempt++) {
+			Thread.sleep(100);
+			for (JsonNode item : api.json(token, get("/api/moodboard"))) {
+				if (!item.get("thumbnailUrl").isNull()) {
+					if (item.get("id").asText().equals(largeId)) {
+						large = item;
+					} else if (item.get("id").asText().equals(smallId)) {
+						small = item;
+					}
+				}
+			}
+		}
+		assertNotNull(large, "Derivatives never generated");
+		assertNotNull(small, "Derivatives never generated");
+
+		assertEquals(2000, large.get("width").asInt());
+		assertEquals(1000, large.get("height").asInt());
+		BufferedImage thumbnail = fetch(large.get("thumbnailUrl").asText());
+		assertEquals(320, thumbnail.getWidth());
+		assertEquals(160, thumbnail.getHeight());
+		BufferedImage preview = fetch(large.get("previewUrl").asText());
+		assertEquals(1280, preview.getWidth());
+		assertEquals(640, preview.getHeight());
+
+		assertEquals(small.get("imageUrl").asText(), small.get("thumbnailUrl").asText());
+		assertEquals(small.get("imageUrl").asText(), small.get("previewUrl").asText());
+		String smallHash = hash(small.get("imageUrl").asText());
+		assertEquals(3, refCount(smallHash));
+
+		api.send(token, delete("/api/moodboard/" + largeId));
+		api.send(token, delete("/api/moodboard/" + smallId));
+		for (String url : new String[]{large.get("imageUrl").asText(), large.get("thumbnailUrl").asText(), large.get("previewUrl").asText()}) {
+			assertEquals(0, refCount(hash(url)));
+		}
+		assertEquals(0, refCount(smallHash));
+	}
+
+	private static byte[] png(int width, int height) throws Exception {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setColor(new Color((int) (Math.random() * 0xFFFFFF)));
+		graphics.fillRect(0, 0, width, height);
+		graphics.setColor(Color.WHITE);
+		graphics.drawLine(0, 0, width, height);
+		graphics.dispose();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+
+	private JsonNode upload(byte[] image) throws Exception {
+		return api.json(token, multipart("/api/moodboard/new").file(new MockMultipartFile("file", "board.png", "image/png", image)));
+	}
+
+	private BufferedImage fetch(String url) throws Exception {
+		byte[] bytes = api.perform(null, get("/api/blobs/" + hash(url)), status().isOk()).getContentAsByteArray();
+		return ImageIO.read(new ByteArrayInputStream(bytes));
+	}
+
+	private static String hash(String url) {
+		return url.substring(url.lastIndexOf('/') + 1);
+	}
+
+	private long refCount(String hash) {
+		return jdbcTemplate.queryForObject("SELECT ref_count FROM blobs WHERE hash = ?", Long.class, hash);
+	}
+}
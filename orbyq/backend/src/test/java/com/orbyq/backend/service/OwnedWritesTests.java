@@ -0,0 +1,58 @@
+package com.orbyq.backend.service;
+
+import com.orbyq.backend.support.ApiTestClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class OwnedWritesTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private ApiTestClient api;
+
+	@BeforeEach
+	void setUp() {
+		api = new ApiTestClient(mockMvc);
+	}
+
+	// Title is optional, so the single-statement writes that return it must still count an untitled row as written
+	@Test
+	void untitledTodosAndDocumentsCanBeToggledAndDeleted() throws Exception {
+		String token = api.register("Untitled");
+		String other = api.register("Untitled");
+
+		api.send(token, post("/api/todos").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"priority\":\"low\",\"dueDate\":\"\",\"category\":\"work\"}"));
+		String todoId = api.json(token, "/api/todos").get("todos").get(0).get("id").asText();
+		assertTrue(api.json(token, "/api/todos").get("todos").get(0).get("title").isNull());
+
+		api.send(other, put("/api/todos/" + todoId + "/complete").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"completed\":true}"), status().isForbidden());
+		api.send(token, put("/api/todos/" + todoId + "/complete").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"completed\":true}"));
+		assertTrue(api.json(token, "/api/todos").get("todos").get(0).get("completed").asBoolean());
+		api.send(token, put("/api/todos/" + todoId + "/complete").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"completed\":false}"));
+		api.send(token, delete("/api/todos/" + todoId));
+		assertEquals(0, api.json(token, "/api/todos").get("todos").size());
+		api.send(token, delete("/api/todos/" + todoId), status().isNotFound());
+
+		String documentId = api.json(token, post("/api/document/new").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"content\":\"body\"}")).get("id").asText();
+		api.send(other, delete("/api/document/" + documentId), status().isForbidden());
+		api.send(token, delete("/api/document/" + documentId));
+		api.send(token, delete("/api/document/" + documentId), status().isNotFound());
+	}
+}
@@ -0,0 +1,47 @@
+package com.orbyq.backend.service;
+
+import com.orbyq.backend.config.VerifiedToken;
+import com.orbyq.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PrincipalCacheTests {
+
+	private static VerifiedToken token(long securityVersion) {
+		long now = System.currentTimeMillis();
+		return new VerifiedToken("ada@example.com", 42L, List.of("USER"), securityVersion, now, now + 60_000L);
+	}
+
+	@Test
+	void rereadsWhenTokenCarriesNewerVersionThanCached() {
+		UserRepository users = mock(UserRepository.class);
+		when(users.findSecurityVersionById(42L)).thenReturn(Optional.of(1L), Optional.of(2L));
+		PrincipalCache cache = new PrincipalCache(users, 100, Duration.ofHours(1));
+
+		assertTrue(cache.resolve(token(1)).isPresent());
+		// Bumped on another instance: the newer token is accepted and the old one is rejected from then on
+		assertTrue(cache.resolve(token(2)).isPresent());
+		assertTrue(cache.resolve(token(1)).isEmpty());
+		verify(users, times(2)).findSecurityVersionById(42L);
+	}
+
+	@Test
+	void rereadsOnceEntryIsOlderThanTtl() throws InterruptedException {
+		UserRepository users = mock(UserRepository.class);
+		when(users.findSecurityVersionById(42L)).thenReturn(Optional.of(1L), Optional.of(2L));
+		PrincipalCache cache = new PrincipalCache(users, 100, Duration.ofMillis(50));
+
+		assertTrue(cache.resolve(token(1)).isPresent());
+		assertTrue(cache.resolve(token(1)).isPresent());
+		Thread.sleep(60);
+		// Revoked elsewhere while cached here
+		assertTrue(cache.resolve(token(1)).isEmpty());
+		verify(users, times(2)).findSecurityVersionById(42L);
+	}
+}
@@ -0,0 +1,61 @@
+package com.orbyq.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.orbyq.backend.support.ApiTestClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TodoFacetsTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private ApiTestClient api;
+
+	@BeforeEach
+	void setUp() {
+		api = new ApiTestClient(mockMvc);
+	}
+
+	@Test
+	void eachFacetCountsUnderTheOtherFilters() throws Exception {
+		String token = api.register("Facets");
+
+		// high/work x2, high/personal, low/work
+		String[][] todos = {{"high", "work"}, {"high", "work"}, {"high", "personal"}, {"low", "work"}};
+		for (String[] todo : todos) {
+			api.send(token, post("/api/todos").contentType(MediaType.APPLICATION_JSON)
+					.content("{\"title\":\"t\",\"priority\":\"" + todo[0] + "\",\"dueDate\":\"\",\"category\":\"" + todo[1] + "\"}"));
+		}
+		String firstId = api.json(token, "/api/todos?sortDirection=asc").get("todos").get(0).get("id").asText();
+		api.send(token, put("/api/todos/" + firstId + "/complete")
+				.contentType(MediaType.APPLICATION_JSON).content("{\"completed\":true}"));
+
+		JsonNode facets = api.json(token, "/api/todos?facets=true&priority=high&category=work").get("facets");
+		assertEquals(2, facets.get("total").asLong());
+		// Priority counts ignore the priority filter but keep the category one
+		assertEquals(2, facets.get("priority").get("high").asLong());
+		assertEquals(1, facets.get("priority").get("low").asLong());
+		assertEquals(0, facets.get("priority").get("medium").asLong());
+		assertEquals(2, facets.get("category").get("work").asLong());
+		assertEquals(1, facets.get("category").get("personal").asLong());
+		assertEquals(0, facets.get("category").get("learning").asLong());
+		assertEquals(1, facets.get("completed").get("true").asLong());
+		assertEquals(1, facets.get("completed").get("false").asLong());
+
+		assertTrue(api.json(token, "/api/todos").get("facets").isNull());
+	}
+}
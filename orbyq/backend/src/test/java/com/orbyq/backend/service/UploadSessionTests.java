@@ -0,0 +1,127 @@
+package com.orbyq.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.orbyq.backend.support.ApiTestClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UploadSessionTests {
+
+	private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private UploadService uploadService;
+
+	private ApiTestClient api;
+
+	@BeforeEach
+	void setUp() {
+		api = new ApiTestClient(mockMvc);
+	}
+
+	// Chunks arrive out of order, one is corrupted and resent, one is sent twice; the committed blob is the exact
+	// original and becomes a mood board item through its URL
+	@Test
+	void resumesAndCommitsOutOfOrderChunks() throws Exception {
+		String token = api.register("Uploads");
+		JsonNode created = api.json(token, post("/api/uploads").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"size\":1,\"contentType\":\"image/png\"}"));
+		int chunkSize = created.get("chunkSize").asInt();
+		byte[] payload = new byte[chunkSize * 2 + 1000];
+		new Random().nextBytes(payload);
+		System.arraycopy(PNG, 0, payload, 0, PNG.length);
+
+		JsonNode session = api.json(token, post("/api/uploads").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"size\":" + payload.length + ",\"contentType\":\"image/png\"}"));
+		String path = "/api/uploads/" + session.get("id").asText();
+		assertEquals(3, session.get("chunkCount").asInt());
+
+		putChunk(token, path, payload, chunkSize, 2, status().isOk());
+		byte[] corrupted = chunk(payload, chunkSize, 0);
+		corrupted[10] ^= 1;
+		api.send(token, put(path + "/chunks/0").content(corrupted).header("Content-Digest", digest(chunk(payload, chunkSize, 0))),
+				status().isBadRequest());
+		api.send(token, put(path + "/chunks/0").content(chunk(payload, chunkSize, 0)), status().isBadRequest());
+		putChunk(token, path, payload, chunkSize, 0, status().isOk());
+
+		JsonNode progress = api.json(token, get(path));
+		assertEquals(2, progress.get("received").size());
+		assertEquals(0, progress.get("received").get(0).get("start").asLong());
+		assertEquals(chunkSize, progress.get("received").get(0).get("end").asLong());
+		assertEquals(chunkSize * 2L, progress.get("received").get(1).get("start").asLong());
+		assertEquals(payload.length, progress.get("received").get(1).get("end").asLong());
+		api.send(token, post(path + "/commit"), status().isBadRequest());
+
+		String other = api.register("Uploads");
+		api.send(other, get(path), status().isForbidden());
+
+		putChunk(token, path, payload, chunkSize, 1, status().isOk());
+		putChunk(token, path, payload, chunkSize, 1, status().isOk());
+		String url = api.json(token, post(path + "/commit")).get("url").asText();
+		String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(payload));
+		assertTrue(url.endsWith("/api/blobs/" + hash), url);
+		assertArrayEquals(payload, api.perform(null, get("/api/blobs/" + hash), status().isOk()).getContentAsByteArray());
+		api.send(token, get(path), status().isNotFound());
+
+		api.json(token, post("/api/moodboard/new").contentType(MediaType.APPLICATION_JSON).content("{\"imageUrl\":\"" + url + "\"}"));
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT ref_count FROM blobs WHERE hash = ?", Integer.class, hash));
+
+		String aborted = "/api/uploads/" + api.json(token, post("/api/uploads").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"size\":10}")).get("id").asText();
+		api.send(token, delete(aborted), status().isOk());
+		api.send(token, get(aborted), status().isNotFound());
+
+		// A lapsed session reads as gone, and the sweep clears its row and chunks
+		JsonNode lapsed = api.json(token, post("/api/uploads").contentType(MediaType.APPLICATION_JSON).content("{\"size\":10}"));
+		String lapsedPath = "/api/uploads/" + lapsed.get("id").asText();
+		putChunk(token, lapsedPath, new byte[10], chunkSize, 0, status().isOk());
+		UUID lapsedId = UUID.fromString(lapsed.get("id").asText());
+		jdbcTemplate.update("UPDATE upload_sessions SET expires_at = now() - interval '1 minute' WHERE id = ?", lapsedId);
+		api.send(token, get(lapsedPath), status().isNotFound());
+		uploadService.sweep();
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM upload_sessions WHERE id = ?", Integer.class, lapsedId));
+		assertFalse(Files.exists(Path.of("data/uploads", lapsedId.toString())));
+	}
+
+	private void putChunk(String token, String path, byte[] payload, int chunkSize, int index, ResultMatcher expected) throws Exception {
+		byte[] chunk = chunk(payload, chunkSize, index);
+		api.send(token, put(path + "/chunks/" + index).content(chunk).contentType(MediaType.APPLICATION_OCTET_STREAM)
+				.header("Content-Digest", digest(chunk)), expected);
+	}
+
+	private static byte[] chunk(byte[] payload, int chunkSize, int index) {
+		return Arrays.copyOfRange(payload, index * chunkSize, Math.min(payload.length, (index + 1) * chunkSize));
+	}
+
+	private static String digest(byte[] chunk) throws Exception {
+		return "sha-256=:" + Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(chunk)) + ":";
+	}
+}
@@ -0,0 +1,69 @@
+package com.orbyq.backend.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Request plumbing shared by the MockMvc tests: a throwaway user per test and requests sent under its bearer token.
+// A null token sends the request anonymously.
+public class ApiTestClient {
+
+	public static final String PASSWORD = "secret123";
+
+	private final MockMvc mockMvc;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	public ApiTestClient(MockMvc mockMvc) {
+		this.mockMvc = mockMvc;
+	}
+
+	// The whole registration response, for tests that need the refresh token too
+	public JsonNode registerUser(String name, String email) throws Exception {
+		return json(null, post("/api/auth/register").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"" + name + "\",\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}"));
+	}
+
+	// A new user under a unique email; returns its access token
+	public String register(String name) throws Exception {
+		return registerUser(name, uniqueEmail(name)).get("token").asText();
+	}
+
+	public static String uniqueEmail(String name) {
+		return name.toLowerCase(Locale.ROOT) + "-" + UUID.randomUUID() + "@example.com";
+	}
+
+	public static MockHttpServletRequestBuilder bearer(String token, MockHttpServletRequestBuilder request) {
+		return token == null ? request : request.header("Authorization", "Bearer " + token);
+	}
+
+	public MockHttpServletResponse perform(String token, MockHttpServletRequestBuilder request, ResultMatcher expected) throws Exception {
+		return mockMvc.perform(bearer(token, request)).andExpect(expected).andReturn().getResponse();
+	}
+
+	public String send(String token, MockHttpServletRequestBuilder request, ResultMatcher expected) throws Exception {
+		return perform(token, request, expected).getContentAsString();
+	}
+
+	public String send(String token, MockHttpServletRequestBuilder request) throws Exception {
+		return send(token, request, status().isOk());
+	}
+
+	public JsonNode json(String token, MockHttpServletRequestBuilder request) throws Exception {
+		return objectMapper.readTree(send(token, request));
+	}
+
+	public JsonNode json(String token, String path) throws Exception {
+		return json(token, get(path));
+	}
+}
@@ -28,6 +28,7 @@ import {
 import { motion } from 'framer-motion'
 import { useAuth } from '@/context/AuthContext'
 import Loader from '@/components/Loader'
+import { RESUMABLE_THRESHOLD, uploadResumable } from '@/uploads'
 import { Popover, PopoverContent, PopoverTrigger } from '@/components/ui/popover'
 import { Label } from '@/components/ui/label'
 import {
@@ -85,6 +86,8 @@ type Document = {
 type MoodBoardItem = {
   id: string
   imageUrl: string
+  thumbnailUrl?: string
+  previewUrl?: string
   createdAt: string
 }
 
@@ -481,7 +484,12 @@ const CreativeSpace = () => {
 
     try {
       let createdItem: CanvasItem
-      if (file) {
+      if (file && file.size > RESUMABLE_THRESHOLD) {
+        // Large images are uploaded resumably first; the item then carries the blob URL like any other image
+        const url = await uploadResumable(file, token as string)
+        const rawResponse = await callBackend(`canvas/${canvasInfo.id}`, 'POST', { ...newItem, content: url })
+        createdItem = typeof rawResponse === 'string' ? JSON.parse(rawResponse) : rawResponse
+      } else if (file) {
         console.log(`Adding image item with file: ${file.name}`)
         console.log('Authorization token:', token)
         const formData = new FormData()
@@ -549,15 +557,26 @@ const CreativeSpace = () => {
   const addMoodBoardItem = async (file: File) => {
     try {
       console.log(`Adding mood board item with file: ${file.name}`)
-      const formData = new FormData()
-      formData.append('file', file)
+      // Images go up as the raw body so the server can stream them; anything the browser can't type falls back to
+      // multipart, and large files go through a resumable session and are then added by URL
+      let body: BodyInit = file
+      const headers: Record<string, string> = { Authorization: `Bearer ${token}` }
+      if (file.size > RESUMABLE_THRESHOLD) {
+        const imageUrl = await uploadResumable(file, token as string)
+        headers['Content-Type'] = 'application/json'
+        body = JSON.stringify({ imageUrl })
+      } else if (file.type.startsWith('image/')) {
+        headers['Content-Type'] = file.type
+      } else {
+        const formData = new FormData()
+        formData.append('file', file)
+        body = formData
+      }
 
       const response = await fetch(`http://localhost:8080/api/moodboard/new`, {
         method: 'POST',
-        headers: {
-          Authorization: `Bearer ${token}`
-        },
-        body: formData
+        headers,
+        body
       })
 
       if (!response.ok) {
@@ -1495,7 +1514,8 @@ const CreativeSpace = () => {
                     className="aspect-square bg-muted rounded-md overflow-hidden relative group"
                   >
                     <img
-                      src={item.imageUrl || '/placeholder.svg'}
+                      src={item.thumbnailUrl || item.imageUrl || '/placeholder.svg'}
+                      loading="lazy"
                       alt={`Mood board item`}
                       className="w-full h-full object-cover"
                     />
@@ -0,0 +1,70 @@
+const API = 'http://localhost:8080/api'
+
+// Files above this go through a resumable upload session instead of a single request
+export const RESUMABLE_THRESHOLD = 8 * 1024 * 1024
+
+const MAX_ATTEMPTS = 5
+
+interface UploadSession {
+  id: string
+  size: number
+  chunkSize: number
+  chunkCount: number
+  received: { start: number; end: number }[]
+  url?: string
+}
+
+const request = async <T>(path: string, token: string, init: RequestInit = {}): Promise<T> => {
+  const response = await fetch(`${API}/${path}`, {
+    ...init,
+    headers: { Authorization: `Bearer ${token}`, ...(init.headers || {}) }
+  })
+  if (!response.ok) {
+    throw new Error(`Request failed with status ${response.status}: ${await response.text()}`)
+  }
+  return response.json()
+}
+
+const sha256 = async (data: ArrayBuffer): Promise<string> => {
+  const digest = new Uint8Array(await crypto.subtle.digest('SHA-256', data))
+  return btoa(String.fromCharCode(...digest))
+}
+
+// Uploads the file chunk by chunk, retrying each chunk with backoff, and returns the blob URL to put on an item.
+// Chunks the server already holds are skipped, so calling this again with the same session id resumes it.
+export const uploadResumable = async (file: File, token: string, sessionId?: string): Promise<string> => {
+  let session = sessionId
+    ? await request<UploadSession>(`uploads/${sessionId}`, token)
+    : await request<UploadSession>('uploads', token, {
+        method: 'POST',
+        headers: { 'Content-Type': 'application/json' },
+        body: JSON.stringify({ size: file.size, contentType: file.type })
+      })
+
+  for (let index = 0; index < session.chunkCount; index++) {
+    const start = index * session.chunkSize
+    if (session.received.some((range) => range.start <= start && start < range.end)) {
+      continue
+    }
+    const chunk = await file.slice(start, Math.min(file.size, start + session.chunkSize)).arrayBuffer()
+    const digest = await sha256(chunk)
+    for (let attempt = 1; ; attempt++) {
+      try {
+        session = await request<UploadSession>(`uploads/${session.id}/chunks/${index}`, token, {
+          method: 'PUT',
+          headers: { 'Content-Type': 'application/octet-stream', 'Content-Digest': `sha-256=:${digest}:` },
+          body: chunk
+        })
+        break
+      } catch (err) {
+        if (attempt >= MAX_ATTEMPTS) {
+          throw err
+        }
+        await new Promise((resolve) => setTimeout(resolve, 500 * 2 ** attempt))
+      }
+    }
+  }
+
+  const committed = await request<UploadSession>(`uploads/${session.id}/commit`, token, { method: 'POST' })
+  return committed.url as string
+}